@@ -0,0 +1,85 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.benchmark;
+
+import org.jboss.weld.environment.se.Weld;
+import org.jboss.weld.environment.se.WeldContainer;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Boots a single Weld SE container in a fresh JVM and reports the time until the container is ready and the bytes
+ * allocated meanwhile.
+ * <p/>
+ * The result is printed as one line prefixed with {@link #RESULT_PREFIX}, followed by the nanoseconds until the
+ * container was ready and the allocated bytes, or -1 if the JVM can't report allocations.
+ */
+public class BootProbe {
+
+	static final String RESULT_PREFIX = "BOOT_PROBE_RESULT ";
+
+	/**
+	 * Utility class needs a private constructor
+	 */
+	private BootProbe() {
+	}
+
+	public static void main(String[] args) {
+		long allocatedBefore = allocatedBytes();
+		long start = System.nanoTime();
+		Weld weld = new Weld();
+		WeldContainer container = weld.initialize();
+		long ready = System.nanoTime() - start;
+		long allocatedAfter = allocatedBytes();
+		if (container == null) {
+			throw new IllegalStateException("Weld container couldn't be started");
+		}
+		weld.shutdown();
+
+		long allocated = allocatedBefore < 0 || allocatedAfter < 0 ? -1 : allocatedAfter - allocatedBefore;
+		System.out.println(RESULT_PREFIX + ready + " " + allocated);
+	}
+
+	/**
+	 * Sums the allocated bytes of all live threads. Weld deploys concurrently, so the bootstrap thread alone doesn't
+	 * tell the whole story. The worker threads stay alive until the container is shut down.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+			return -1;
+		}
+		com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+		if (!allocations.isThreadAllocatedMemorySupported() || !allocations.isThreadAllocatedMemoryEnabled()) {
+			return -1;
+		}
+		long sum = 0;
+		for (long allocated : allocations.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+			if (allocated > 0) {
+				sum += allocated;
+			}
+		}
+		return sum;
+	}
+}
@@ -0,0 +1,307 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Macro benchmark for the bootstrap path of the extension.
+ * <p/>
+ * For every combination of the configured shapes a {@link SyntheticDeployment} is generated and booted in forked
+ * JVMs by {@link BootProbe}. The medians are reported as scaling curves over the number of annotated types, one curve
+ * per location, keys per file and types per file. The results are also written as CSV, which can be passed as
+ * baseline to a later run for detecting regressions.
+ * <p/>
+ * The benchmark is configured via system properties
+ * <ul>
+ * <li>{@code benchmark.types} - comma separated numbers of annotated types, default {@code 10,100,1000,10000}</li>
+ * <li>{@code benchmark.typesPerFile} - comma separated numbers of types sharing one file, default {@code 1,10}</li>
+ * <li>{@code benchmark.keysPerFile} - comma separated numbers of keys per file, default {@code 10,100,1000}</li>
+ * <li>{@code benchmark.fieldsPerType} - number of {@literal @}Property fields per type, default {@code 10}</li>
+ * <li>{@code benchmark.locations} - {@code classpath}, {@code filesystem} or both, default both</li>
+ * <li>{@code benchmark.forks} - number of forked JVMs per measurement, default {@code 3}</li>
+ * <li>{@code benchmark.jvmArgs} - additional arguments for the forked JVMs</li>
+ * <li>{@code benchmark.output} - output folder, default {@code build/benchmark}</li>
+ * <li>{@code benchmark.baseline} - CSV of a previous run to compare with</li>
+ * <li>{@code benchmark.tolerance} - allowed growth of time to ready and allocated bytes against the baseline, default
+ * {@code 1.25}</li>
+ * </ul>
+ * System properties starting with {@code com.coderskitchen.cdiproperties.} are passed to the forked JVMs.
+ */
+public class StartupBenchmark {
+
+	static final String CLASSPATH = "classpath";
+	static final String FILESYSTEM = "filesystem";
+	private static final String EXTENSION_PROPERTY_PREFIX = "com.coderskitchen.cdiproperties.";
+	private static final String CSV_HEADER = "location,typesPerFile,keysPerFile,fieldsPerType,types,files,readyMillis,allocatedBytes";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	/**
+	 * Utility class needs a private constructor
+	 */
+	private StartupBenchmark() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		List<Integer> types = integers("benchmark.types", "10,100,1000,10000");
+		List<Integer> typesPerFile = integers("benchmark.typesPerFile", "1,10");
+		List<Integer> keysPerFile = integers("benchmark.keysPerFile", "10,100,1000");
+		int fieldsPerType = Integer.parseInt(System.getProperty("benchmark.fieldsPerType", "10"));
+		List<String> locations = Arrays.asList(System.getProperty("benchmark.locations", CLASSPATH + "," + FILESYSTEM).split(","));
+		int forks = Integer.parseInt(System.getProperty("benchmark.forks", "3"));
+		Path output = Paths.get(System.getProperty("benchmark.output", "build/benchmark"));
+		String classpath = System.getProperty("java.class.path");
+
+		List<Measurement> measurements = new ArrayList<Measurement>();
+		for (int keys : keysPerFile) {
+			for (int sharing : typesPerFile) {
+				for (int count : types) {
+					Path root = output.resolve("deployments/t" + count + "-s" + sharing + "-k" + keys + "-f" + fieldsPerType);
+					SyntheticDeployment deployment = new SyntheticDeployment(root, count, sharing, keys, fieldsPerType);
+					deployment.generate(classpath);
+					for (String location : locations) {
+						measurements.add(measure(deployment, location.trim(), sharing, keys, fieldsPerType, count, forks, classpath));
+					}
+				}
+			}
+		}
+
+		printScalingCurves(measurements);
+		writeCsv(output.resolve("startup.csv"), measurements);
+
+		String baseline = System.getProperty("benchmark.baseline");
+		if (baseline != null) {
+			double tolerance = Double.parseDouble(System.getProperty("benchmark.tolerance", "1.25"));
+			List<String> regressions = compareWithBaseline(Paths.get(baseline), measurements, tolerance);
+			for (String regression : regressions) {
+				System.out.println("REGRESSION " + regression);
+			}
+			if (!regressions.isEmpty()) {
+				System.exit(1);
+			}
+		}
+	}
+
+	private static Measurement measure(SyntheticDeployment deployment, String location, int typesPerFile, int keysPerFile, int fieldsPerType, int types, int forks, String classpath) throws IOException, InterruptedException {
+		List<String> command = new ArrayList<String>();
+		command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+		String jvmArgs = System.getProperty("benchmark.jvmArgs", "").trim();
+		if (!jvmArgs.isEmpty()) {
+			command.addAll(Arrays.asList(jvmArgs.split("\\s+")));
+		}
+		for (String name : System.getProperties().stringPropertyNames()) {
+			if (name.startsWith(EXTENSION_PROPERTY_PREFIX)) {
+				command.add("-D" + name + "=" + System.getProperty(name));
+			}
+		}
+		String deploymentClasspath = deployment.getClassesFolder() + File.pathSeparator + classpath;
+		if (CLASSPATH.equals(location)) {
+			deploymentClasspath = deployment.getFilesFolder() + File.pathSeparator + deploymentClasspath;
+		} else if (FILESYSTEM.equals(location)) {
+			command.add("-D" + EXTENSION_PROPERTY_PREFIX + "baseFolder=" + deployment.getFilesFolder().toAbsolutePath());
+		} else {
+			throw new IllegalArgumentException("Unknown location " + location);
+		}
+		command.add("-cp");
+		command.add(deploymentClasspath);
+		command.add(BootProbe.class.getName());
+
+		long[] readyNanos = new long[forks];
+		long[] allocatedBytes = new long[forks];
+		for (int fork = 0; fork < forks; fork++) {
+			long[] result = runFork(command);
+			readyNanos[fork] = result[0];
+			allocatedBytes[fork] = result[1];
+		}
+		Measurement measurement = new Measurement(location, typesPerFile, keysPerFile, fieldsPerType, types, deployment.getFiles(), median(readyNanos) / 1e6, median(allocatedBytes));
+		System.out.println(measurement.toCsv());
+		return measurement;
+	}
+
+	private static long[] runFork(List<String> command) throws IOException, InterruptedException {
+		Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+		LinkedList<String> tail = new LinkedList<String>();
+		long[] result = null;
+		BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), UTF8));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith(BootProbe.RESULT_PREFIX)) {
+					String[] values = line.substring(BootProbe.RESULT_PREFIX.length()).split(" ");
+					result = new long[]{Long.parseLong(values[0]), Long.parseLong(values[1])};
+				}
+				tail.add(line);
+				if (tail.size() > 20) {
+					tail.removeFirst();
+				}
+			}
+		} finally {
+			reader.close();
+		}
+		int exitCode = process.waitFor();
+		if (exitCode != 0 || result == null) {
+			StringBuilder message = new StringBuilder("Forked JVM failed with exit code " + exitCode + ":");
+			for (String line : tail) {
+				message.append('\n').append(line);
+			}
+			throw new IllegalStateException(message.toString());
+		}
+		return result;
+	}
+
+	private static void printScalingCurves(List<Measurement> measurements) {
+		Map<String, List<Measurement>> curves = new HashMap<String, List<Measurement>>();
+		List<String> order = new ArrayList<String>();
+		for (Measurement measurement : measurements) {
+			String curve = String.format("location=%s keysPerFile=%d typesPerFile=%d fieldsPerType=%d", measurement.location, measurement.keysPerFile, measurement.typesPerFile, measurement.fieldsPerType);
+			if (!curves.containsKey(curve)) {
+				curves.put(curve, new ArrayList<Measurement>());
+				order.add(curve);
+			}
+			curves.get(curve).add(measurement);
+		}
+		for (String curve : order) {
+			System.out.println();
+			System.out.println(curve);
+			System.out.println(String.format("%10s %8s %12s %12s %14s %10s", "types", "files", "ready [ms]", "ms/type", "allocated [MB]", "exponent"));
+			Measurement previous = null;
+			for (Measurement measurement : curves.get(curve)) {
+				String exponent = previous == null ? "-" : String.format(Locale.ROOT, "%.2f",
+						Math.log(measurement.readyMillis / previous.readyMillis) / Math.log((double) measurement.types / previous.types));
+				System.out.println(String.format(Locale.ROOT, "%10d %8d %12.1f %12.3f %14.1f %10s", measurement.types, measurement.files,
+						measurement.readyMillis, measurement.readyMillis / measurement.types, measurement.allocatedBytes / (1024.0 * 1024.0), exponent));
+				previous = measurement;
+			}
+		}
+	}
+
+	private static void writeCsv(Path file, List<Measurement> measurements) throws IOException {
+		Files.createDirectories(file.getParent());
+		Writer writer = Files.newBufferedWriter(file, UTF8);
+		try {
+			writer.write(CSV_HEADER + "\n");
+			for (Measurement measurement : measurements) {
+				writer.write(measurement.toCsv() + "\n");
+			}
+		} finally {
+			writer.close();
+		}
+		System.out.println();
+		System.out.println("Results written to " + file);
+	}
+
+	private static List<String> compareWithBaseline(Path baseline, List<Measurement> measurements, double tolerance) throws IOException {
+		List<String> lines = Files.readAllLines(baseline, UTF8);
+		if (lines.isEmpty() || !lines.get(0).equals(CSV_HEADER)) {
+			throw new IllegalArgumentException("Baseline " + baseline + " doesn't start with the header " + CSV_HEADER);
+		}
+		Map<String, String[]> baselineValues = new HashMap<String, String[]>();
+		for (String line : lines.subList(1, lines.size())) {
+			if (line.isEmpty()) {
+				continue;
+			}
+			String[] values = line.split(",");
+			baselineValues.put(values[0] + "," + values[1] + "," + values[2] + "," + values[3] + "," + values[4], values);
+		}
+		List<String> regressions = new ArrayList<String>();
+		for (Measurement measurement : measurements) {
+			String[] before = baselineValues.get(measurement.key());
+			if (before == null) {
+				continue;
+			}
+			double beforeMillis = Double.parseDouble(before[6]);
+			if (measurement.readyMillis > beforeMillis * tolerance) {
+				regressions.add(String.format(Locale.ROOT, "%s: %.1f ms, baseline %.1f ms", measurement.key(), measurement.readyMillis, beforeMillis));
+			}
+			long beforeBytes = Long.parseLong(before[7]);
+			if (measurement.allocatedBytes > beforeBytes * tolerance) {
+				regressions.add(String.format(Locale.ROOT, "%s: %d bytes allocated, baseline %d bytes", measurement.key(), measurement.allocatedBytes, beforeBytes));
+			}
+		}
+		return regressions;
+	}
+
+	private static List<Integer> integers(String property, String defaultValue) {
+		List<Integer> values = new ArrayList<Integer>();
+		for (String value : System.getProperty(property, defaultValue).split(",")) {
+			values.add(Integer.valueOf(value.trim()));
+		}
+		Collections.sort(values);
+		return values;
+	}
+
+	private static long median(long[] values) {
+		long[] sorted = values.clone();
+		Arrays.sort(sorted);
+		return sorted[sorted.length / 2];
+	}
+
+	/**
+	 * The median result of booting one deployment at one location
+	 */
+	static class Measurement {
+		final String location;
+		final int typesPerFile;
+		final int keysPerFile;
+		final int fieldsPerType;
+		final int types;
+		final int files;
+		final double readyMillis;
+		final long allocatedBytes;
+
+		Measurement(String location, int typesPerFile, int keysPerFile, int fieldsPerType, int types, int files, double readyMillis, long allocatedBytes) {
+			this.location = location;
+			this.typesPerFile = typesPerFile;
+			this.keysPerFile = keysPerFile;
+			this.fieldsPerType = fieldsPerType;
+			this.types = types;
+			this.files = files;
+			this.readyMillis = readyMillis;
+			this.allocatedBytes = allocatedBytes;
+		}
+
+		String key() {
+			return location + "," + typesPerFile + "," + keysPerFile + "," + fieldsPerType + "," + types;
+		}
+
+		String toCsv() {
+			return String.format(Locale.ROOT, "%s,%d,%.3f,%d", key(), files, readyMillis, allocatedBytes);
+		}
+	}
+}
@@ -0,0 +1,200 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.benchmark;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Generates a bean archive with a configurable number of {@literal @}PropertyFile annotated types.
+ * <p/>
+ * The archive consists of two folders: <i>classes</i> contains the compiled types and an empty beans.xml,
+ * <i>files</i> contains the generated properties files. Whether the files are visible on the classpath or only
+ * on the file system is decided when the archive is booted, so one generated archive serves both lookup paths.
+ */
+public class SyntheticDeployment {
+
+	static final String PACKAGE = "bench";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final int types;
+	private final int typesPerFile;
+	private final int keysPerFile;
+	private final int fieldsPerType;
+	private final Path root;
+
+	/**
+	 * Constructor accepting the shape of the archive
+	 *
+	 * @param root
+	 * 		- folder the archive is generated into
+	 * @param types
+	 * 		- number of annotated types
+	 * @param typesPerFile
+	 * 		- number of types sharing one properties file
+	 * @param keysPerFile
+	 * 		- number of keys per properties file
+	 * @param fieldsPerType
+	 * 		- number of {@literal @}Property fields per type, limited by keysPerFile
+	 */
+	public SyntheticDeployment(Path root, int types, int typesPerFile, int keysPerFile, int fieldsPerType) {
+		this.root = root;
+		this.types = types;
+		this.typesPerFile = Math.max(1, typesPerFile);
+		this.keysPerFile = keysPerFile;
+		this.fieldsPerType = Math.min(fieldsPerType, keysPerFile);
+	}
+
+	public Path getClassesFolder() {
+		return root.resolve("classes");
+	}
+
+	public Path getFilesFolder() {
+		return root.resolve("files");
+	}
+
+	public int getFiles() {
+		return (types + typesPerFile - 1) / typesPerFile;
+	}
+
+	/**
+	 * Generates sources and properties files and compiles the sources. An already generated archive is reused.
+	 *
+	 * @param classpath
+	 * 		the classpath containing the CDIProperties annotations
+	 * @throws IOException
+	 * 		if the archive couldn't be written
+	 */
+	public void generate(String classpath) throws IOException {
+		Path marker = root.resolve("complete");
+		if (Files.exists(marker)) {
+			return;
+		}
+		Path sources = root.resolve("sources");
+		Path packageFolder = sources.resolve(PACKAGE);
+		Files.createDirectories(packageFolder);
+		Files.createDirectories(getClassesFolder().resolve("META-INF"));
+		Files.createDirectories(getFilesFolder().resolve(PACKAGE));
+		Files.write(getClassesFolder().resolve("META-INF/beans.xml"), new byte[0]);
+
+		for (int file = 0; file < getFiles(); file++) {
+			writePropertiesFile(file);
+		}
+		List<File> sourceFiles = new ArrayList<File>(types);
+		for (int type = 0; type < types; type++) {
+			Path source = packageFolder.resolve(typeName(type) + ".java");
+			writeType(source, type);
+			sourceFiles.add(source.toFile());
+		}
+		compile(sourceFiles, classpath);
+		Files.write(marker, new byte[0]);
+	}
+
+	private void writePropertiesFile(int file) throws IOException {
+		Writer writer = Files.newBufferedWriter(getFilesFolder().resolve(fileName(file)), UTF8);
+		try {
+			for (int key = 0; key < keysPerFile; key++) {
+				writer.write("key" + key + "=" + valueOf(file, key) + "\n");
+			}
+		} finally {
+			writer.close();
+		}
+	}
+
+	private void writeType(Path source, int type) throws IOException {
+		Writer writer = Files.newBufferedWriter(source, UTF8);
+		try {
+			writer.write("package " + PACKAGE + ";\n\n");
+			writer.write("import com.coderskitchen.cdiproperties.Property;\n");
+			writer.write("import com.coderskitchen.cdiproperties.PropertyFile;\n\n");
+			writer.write("@PropertyFile(\"" + fileName(type / typesPerFile) + "\")\n");
+			writer.write("public class " + typeName(type) + " {\n");
+			int firstKey = type % typesPerFile;
+			for (int field = 0; field < fieldsPerType; field++) {
+				int key = (firstKey + field) % keysPerFile;
+				writer.write("\t@Property(\"key" + key + "\")\n");
+				writer.write("\tprivate " + fieldType(key) + " field" + field + ";\n");
+			}
+			writer.write("}\n");
+		} finally {
+			writer.close();
+		}
+	}
+
+	private void compile(List<File> sourceFiles, String classpath) throws IOException {
+		JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+		if (compiler == null) {
+			throw new IllegalStateException("Generating a synthetic deployment requires a JDK");
+		}
+		StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, UTF8);
+		try {
+			List<String> options = Arrays.asList("-nowarn", "-classpath", classpath, "-d", getClassesFolder().toString());
+			Boolean success = compiler.getTask(null, fileManager, null, options, null, fileManager.getJavaFileObjectsFromFiles(sourceFiles)).call();
+			if (!success) {
+				throw new IllegalStateException("Compiling the synthetic deployment in " + root + " failed");
+			}
+		} finally {
+			fileManager.close();
+		}
+	}
+
+	static String typeName(int type) {
+		return "Config" + type;
+	}
+
+	static String fileName(int file) {
+		return PACKAGE + "/file" + file + ".properties";
+	}
+
+	private static String fieldType(int key) {
+		switch (key % 3) {
+			case 0:
+				return "String";
+			case 1:
+				return "int";
+			default:
+				return "boolean";
+		}
+	}
+
+	private static String valueOf(int file, int key) {
+		switch (key % 3) {
+			case 0:
+				return "host-" + (file % 16) + ".example.com";
+			case 1:
+				return String.valueOf(key * 1000);
+			default:
+				return String.valueOf(key % 2 == 0);
+		}
+	}
+}
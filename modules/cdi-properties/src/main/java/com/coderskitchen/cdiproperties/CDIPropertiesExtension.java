@@ -22,22 +22,34 @@
  */
 package com.coderskitchen.cdiproperties;
 
+import com.coderskitchen.cdiproperties.audit.ResolutionAudit;
+import com.coderskitchen.cdiproperties.audit.SourceLayer;
+import com.coderskitchen.cdiproperties.format.spi.PropertyFormat;
+
 import javax.enterprise.event.Observes;
+import javax.enterprise.inject.InjectionException;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
 import javax.enterprise.inject.spi.AnnotatedField;
 import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.BeforeShutdown;
 import javax.enterprise.inject.spi.Extension;
-import javax.enterprise.inject.spi.InjectionTarget;
 import javax.enterprise.inject.spi.ProcessInjectionTarget;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Field;
+import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -79,7 +91,7 @@ import java.util.logging.Logger;
 public class CDIPropertiesExtension implements Extension {
 
 	public static final String MESSAGE_PROPERTIES_FROM = "Properties from %s";
-	public static final String MESSAGE_PROPERTY_KEY_VALUE = "%s = %s";
+	public static final String MESSAGE_STRING_POOL_STATISTICS = "String pool of this deployment: %d of %d loaded keys and values were duplicates within the deployment, saving about %d bytes; %d were shared with other deployments";
 	Logger logger = Logger.getLogger(CDIPropertiesExtension.class.getName());
 
 	/**
@@ -99,16 +111,96 @@ public class CDIPropertiesExtension implements Extension {
 	 * By default the cache is not used
 	 */
 	public static final String PROPERTY_USE_CACHING = "com.coderskitchen.cdiproperties.useCaching";
+
+	/**
+	 * Specifies a folder for persistent snapshots of the loaded properties files
+	 * <p/>
+	 * A snapshot is reused across restarts as long as the properties file is unchanged. By default no snapshots are
+	 * written
+	 */
+	public static final String PROPERTY_SNAPSHOT_FOLDER = "com.coderskitchen.cdiproperties.snapshotFolder";
+
+	/**
+	 * Specifies that properties files are loaded on the first injection of a bean instead of during deployment
+	 * <p/>
+	 * By default the files are loaded during deployment
+	 */
+	public static final String PROPERTY_LAZY_LOADING = "com.coderskitchen.cdiproperties.lazyLoading";
+
+	/**
+	 * Specifies that lazily loaded properties files are loaded and validated after deployment validation, so missing
+	 * files and keys are reported as deployment problems
+	 * <p/>
+	 * By default errors of lazily loaded files are reported on the first injection
+	 */
+	public static final String PROPERTY_VALIDATE_LAZY_LOADING = "com.coderskitchen.cdiproperties.validateLazyLoading";
+
+	/**
+	 * Specifies that the resolution of each property to a field is recorded in a {@link ResolutionAudit}
+	 * <p/>
+	 * By default nothing is recorded
+	 */
+	public static final String PROPERTY_AUDIT = "com.coderskitchen.cdiproperties.audit";
+
+	/**
+	 * Specifies the number of events the audit buffers until its background thread catches up, further events are
+	 * dropped
+	 * <p/>
+	 * By default 1024 events are buffered
+	 */
+	public static final String PROPERTY_AUDIT_BUFFER_SIZE = "com.coderskitchen.cdiproperties.auditBufferSize";
 	/**
 	 * Exception message when the properties couldn't found
 	 */
 	public static final String PROPERTIES_FILE_NOT_FOUND = "Properties file [%s] not found!";
+	/**
+	 * Exception message when several fields of a class couldn't be injected
+	 */
+	public static final String MESSAGE_FIELDS_NOT_INJECTABLE = "Properties of class %s couldn't be injected: %s";
+
+	private static final SourceLayer[] CLASSPATH_FIRST = {SourceLayer.CLASSPATH, SourceLayer.FILE_SYSTEM};
+	private static final SourceLayer[] FILE_SYSTEM_FIRST = {SourceLayer.FILE_SYSTEM, SourceLayer.CLASSPATH};
+
+	private final boolean preferFileSystem;
+	private final boolean useCaching;
+	private final String propertiesBaseFolder;
+	private final boolean lazyLoading;
+	private final boolean validateLazyLoading;
+	private final PropertiesSnapshotCache snapshotCache;
+	private final ResolutionAudit audit;
+	private final StringPool.Statistics stringPoolStatistics = new StringPool.Statistics();
+
+	private final Map<String, PropertyIndex> propertiesCache = new ConcurrentHashMap<String, PropertyIndex>();
+	private final ValueConverterFactory converterFactory = new ValueConverterFactory();
+	private final PropertyFormatFactory formatFactory = new PropertyFormatFactory();
 
-	private static final boolean PREFER_FILE_SYSTEM = Boolean.valueOf(System.getProperty(PROPERTY_PREFER_FILE_SYSTEM, "false"));
-	private static final boolean USE_CACHING = Boolean.valueOf(System.getProperty(PROPERTY_USE_CACHING, "false"));
-	private static final String PROPERTIES_BASE_FOLDER = System.getProperty(PROPERTY_BASE_FOLDER, "");
+	private final List<PropertyInjectionTarget<?>> lazyTargetsToValidate = Collections.synchronizedList(new ArrayList<PropertyInjectionTarget<?>>());
 
-	private static final Map<String, Properties> PROPERTIES_CACHE = new HashMap<String, Properties>();
+	/**
+	 * Creates the extension configured by the system properties
+	 */
+	public CDIPropertiesExtension() {
+		this(System.getProperties());
+	}
+
+	/**
+	 * Creates the extension with its own configuration, e.g. for containers accepting extension instances. All state of
+	 * the extension belongs to the instance, so every container has its own settings and caches.
+	 *
+	 * @param configuration
+	 * 		the configuration, using the same keys as the system properties
+	 */
+	public CDIPropertiesExtension(Properties configuration) {
+		preferFileSystem = Boolean.valueOf(configuration.getProperty(PROPERTY_PREFER_FILE_SYSTEM, "false"));
+		useCaching = Boolean.valueOf(configuration.getProperty(PROPERTY_USE_CACHING, "false"));
+		propertiesBaseFolder = configuration.getProperty(PROPERTY_BASE_FOLDER, "");
+		lazyLoading = Boolean.valueOf(configuration.getProperty(PROPERTY_LAZY_LOADING, "false"));
+		validateLazyLoading = Boolean.valueOf(configuration.getProperty(PROPERTY_VALIDATE_LAZY_LOADING, "false"));
+		String snapshotFolder = configuration.getProperty(PROPERTY_SNAPSHOT_FOLDER, "");
+		snapshotCache = snapshotFolder.isEmpty() ? null : new PropertiesSnapshotCache(Paths.get(snapshotFolder), stringPoolStatistics);
+		boolean auditEnabled = Boolean.valueOf(configuration.getProperty(PROPERTY_AUDIT, "false"));
+		audit = auditEnabled ? new ResolutionAudit(Integer.parseInt(configuration.getProperty(PROPERTY_AUDIT_BUFFER_SIZE, "1024"))) : null;
+	}
 
 	/**
 	 * Prepares the injection process of properties from a property file.
@@ -124,72 +216,153 @@ public class CDIPropertiesExtension implements Extension {
 			return;
 		}
 		try {
-			PropertyFile propertyFile = at.getAnnotation(PropertyFile.class);
-			Properties properties = loadProperties(propertyFile, pit.getAnnotatedType().getJavaClass());
-			Map<Field, Object> fieldValues = assignPropertiesToFields(at.getFields(), properties);
-			InjectionTarget<T> wrapped = new PropertyInjectionTarget<T>(fieldValues, pit, pit.getInjectionTarget());
+			FieldValuesLoader<T> loader = new FieldValuesLoader<T>(at.getAnnotation(PropertyFile.class), at);
+			PropertyInjectionTarget<T> wrapped;
+			if (lazyLoading) {
+				wrapped = new PropertyInjectionTarget<T>(loader, pit.getInjectionTarget());
+				if (validateLazyLoading) {
+					lazyTargetsToValidate.add(wrapped);
+				}
+			} else {
+				wrapped = new PropertyInjectionTarget<T>(loader.call(), pit.getInjectionTarget());
+			}
 			pit.setInjectionTarget(wrapped);
 		} catch (Exception e) {
 			pit.addDefinitionError(e);
 		}
 	}
 
-	private Properties loadProperties(PropertyFile propertyFile, Class fromClass) throws IOException {
+	/**
+	 * Loads the lazily loaded properties files if requested, so their errors are reported as deployment problems.
+	 *
+	 * @param adv
+	 * 		the after deployment validation event
+	 */
+	public void validateLazyLoading(@Observes AfterDeploymentValidation adv) {
+		synchronized (lazyTargetsToValidate) {
+			for (PropertyInjectionTarget<?> target : lazyTargetsToValidate) {
+				try {
+					target.load();
+				} catch (InjectionException e) {
+					adv.addDeploymentProblem(e);
+				}
+			}
+			lazyTargetsToValidate.clear();
+		}
+	}
+
+	/**
+	 * Reports how many keys and values loaded by this deployment were deduplicated by the string pool.
+	 *
+	 * @param adv
+	 * 		the after deployment validation event
+	 */
+	public void reportStringPoolStatistics(@Observes AfterDeploymentValidation adv) {
+		if (logger.isLoggable(Level.FINE)) {
+			logger.log(Level.FINE, String.format(MESSAGE_STRING_POOL_STATISTICS, stringPoolStatistics.getDuplicates(), stringPoolStatistics.getLookups(), stringPoolStatistics.getSavedBytes(), stringPoolStatistics.getShared()));
+		}
+	}
+
+	/**
+	 * Returns the audit of this extension, e.g. for reading the resolution trace of an injected extension.
+	 *
+	 * @return the audit or null, if auditing isn't enabled by {@link #PROPERTY_AUDIT}
+	 */
+	public ResolutionAudit getResolutionAudit() {
+		return audit;
+	}
+
+	/**
+	 * Drains the remaining audit events and stops the audit thread.
+	 *
+	 * @param bs
+	 * 		the before shutdown event
+	 */
+	public void closeResolutionAudit(@Observes BeforeShutdown bs) throws InterruptedException {
+		if (audit != null) {
+			audit.close();
+		}
+	}
+
+	private PropertyIndex loadProperties(PropertyFile propertyFile, Class fromClass) throws IOException {
 		String filename = propertyFile.value();
-		Properties properties;
-		if (USE_CACHING && PROPERTIES_CACHE.containsKey(filename)) {
-			properties = PROPERTIES_CACHE.get(filename);
+		PropertyIndex properties;
+		if (useCaching && propertiesCache.containsKey(filename)) {
+			properties = propertiesCache.get(filename);
 		} else {
-			properties = loadPropertiesFromFile(filename, fromClass);
-			PROPERTIES_CACHE.put(filename, properties);
+			PropertyFormat format = formatFactory.findFormatForFile(filename, propertyFile.format());
+			properties = loadPropertiesFromFile(filename, format, fromClass);
+			if (useCaching) {
+				propertiesCache.put(filename, properties);
+			}
 		}
 
-		logger.log(Level.FINER, String.format(MESSAGE_PROPERTIES_FROM, filename));
-		for (Map.Entry<Object, Object> objectObjectEntry : properties.entrySet()) {
-			logger.log(Level.FINER, String.format(MESSAGE_PROPERTY_KEY_VALUE, objectObjectEntry.getKey(), objectObjectEntry.getValue()));
+		if (logger.isLoggable(Level.FINER)) {
+			logger.log(Level.FINER, String.format(MESSAGE_PROPERTIES_FROM, properties.getLocation()));
 		}
 
 		return properties;
 	}
 
-	private Properties loadPropertiesFromFile(String filename, Class fromClass) throws IOException {
-		Properties properties = new Properties();
-		InputStream propertiesStream;
-		if (PREFER_FILE_SYSTEM) {
-			propertiesStream = loadPropertiesFromResources(filename, fromClass);
-			if (propertiesStream == null) {
-				propertiesStream = fromClass.getClassLoader().getResourceAsStream(filename);
+	private PropertyIndex loadPropertiesFromFile(String filename, PropertyFormat format, Class fromClass) throws IOException {
+		for (SourceLayer layer : preferFileSystem ? FILE_SYSTEM_FIRST : CLASSPATH_FIRST) {
+			URL location = layer == SourceLayer.FILE_SYSTEM ? resolveFromFileSystem(filename) : resolveFromResources(filename, fromClass);
+			if (location != null) {
+				return loadIndex(location, format, layer);
 			}
-		} else {
-			propertiesStream = loadPropertiesFromResources(filename, fromClass);
-			if (propertiesStream == null) {
-				propertiesStream = loadPropertyFromFileSystem(filename);
+		}
+		throw new IllegalArgumentException(String.format(PROPERTIES_FILE_NOT_FOUND, filename));
+	}
+
+	/**
+	 * Returns the index of the file at location, shared with other containers as long as the file is unchanged
+	 */
+	private PropertyIndex loadIndex(URL location, PropertyFormat format, SourceLayer layer) throws IOException {
+		String source = location.toExternalForm() + '#' + format.getClass().getName() + '#' + layer;
+		String version = PropertyIndexRegistry.versionOf(location);
+		if (version != null) {
+			PropertyIndex shared = PropertyIndexRegistry.get(source, version);
+			if (shared != null) {
+				return shared;
 			}
 		}
-		if (propertiesStream == null) {
-			throw new IllegalArgumentException(String.format(PROPERTIES_FILE_NOT_FOUND, filename));
+		PropertyIndex index;
+		if (snapshotCache != null) {
+			index = snapshotCache.load(location, format, layer);
+		} else {
+			index = new PropertyIndex(readProperties(location, format), location.toString(), layer, stringPoolStatistics);
+		}
+		return version == null ? index : PropertyIndexRegistry.register(source, version, index);
+	}
+
+	private Properties readProperties(URL location, PropertyFormat format) throws IOException {
+		Properties properties = new Properties();
+		InputStream propertiesStream = location.openStream();
+		try {
+			format.read(propertiesStream, properties);
+		} finally {
+			propertiesStream.close();
 		}
-		properties.load(propertiesStream);
 		return properties;
 	}
 
-	private InputStream loadPropertiesFromResources(String filename, Class fromClass) {
-		InputStream propertiesStream = fromClass.getClassLoader().getResourceAsStream(filename);
-		if (propertiesStream == null) {
-			propertiesStream = fromClass.getResourceAsStream(filename);
+	private URL resolveFromResources(String filename, Class fromClass) {
+		URL location = fromClass.getClassLoader().getResource(filename);
+		if (location == null) {
+			location = fromClass.getResource(filename);
 		}
-		return propertiesStream;
+		return location;
 	}
 
-	private InputStream loadPropertyFromFileSystem(String filename) throws IOException {
-		Path path = Paths.get(PROPERTIES_BASE_FOLDER, filename);
+	private URL resolveFromFileSystem(String filename) throws IOException {
+		Path path = Paths.get(propertiesBaseFolder, filename);
 		if (Files.exists(path)) {
-			return Files.newInputStream(path);
+			return path.toUri().toURL();
 		}
 		return null;
 	}
 
-	private <T> Map<Field, Object> assignPropertiesToFields(Set<AnnotatedField<? super T>> fields, Properties properties) {
+	private <T> Map<Field, Object> assignPropertiesToFields(Set<AnnotatedField<? super T>> fields, PropertyIndex properties) {
 		Map<Field, Object> fieldValues = new HashMap<Field, Object>();
 		for (AnnotatedField<? super T> field : fields) {
 			if (field.isAnnotationPresent(Property.class)) {
@@ -197,8 +370,44 @@ public class CDIPropertiesExtension implements Extension {
 				Object value = properties.get(property.value());
 				Field memberField = field.getJavaMember();
 				fieldValues.put(memberField, value);
+			} else if (field.isAnnotationPresent(PropertyPrefix.class)) {
+				PropertyPrefix prefix = field.getAnnotation(PropertyPrefix.class);
+				fieldValues.put(field.getJavaMember(), properties.withPrefix(prefix.value()));
 			}
 		}
 		return fieldValues;
 	}
+
+	/**
+	 * Loads the properties file of a class and converts the values of its fields
+	 */
+	private class FieldValuesLoader<T> implements Callable<Map<Field, Object>> {
+		private final PropertyFile propertyFile;
+		private final Class<T> javaClass;
+		private final Set<AnnotatedField<? super T>> fields;
+
+		FieldValuesLoader(PropertyFile propertyFile, AnnotatedType<T> at) {
+			this.propertyFile = propertyFile;
+			this.javaClass = at.getJavaClass();
+			this.fields = at.getFields();
+		}
+
+		@Override
+		public Map<Field, Object> call() throws IOException {
+			PropertyIndex properties = loadProperties(propertyFile, javaClass);
+			FieldValueConverter converter = new FieldValueConverter(converterFactory, audit, propertyFile.value(), properties);
+			Map<Field, Object> fieldValues = converter.convert(javaClass.getName(), assignPropertiesToFields(fields, properties));
+			List<Exception> problems = converter.getProblems();
+			if (problems.size() == 1 && problems.get(0) instanceof InjectionException) {
+				throw (InjectionException) problems.get(0);
+			} else if (!problems.isEmpty()) {
+				StringBuilder messages = new StringBuilder();
+				for (Exception problem : problems) {
+					messages.append(messages.length() == 0 ? "" : "; ").append(problem.getMessage());
+				}
+				throw new InjectionException(String.format(MESSAGE_FIELDS_NOT_INJECTABLE, javaClass.getName(), messages), problems.get(0));
+			}
+			return fieldValues;
+		}
+	}
 }
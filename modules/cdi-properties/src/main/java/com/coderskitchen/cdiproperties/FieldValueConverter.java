@@ -0,0 +1,251 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties;
+
+import com.coderskitchen.cdiproperties.audit.ResolutionAudit;
+import com.coderskitchen.cdiproperties.converter.spi.ValueConverter;
+
+import javax.enterprise.inject.InjectionException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Converts the values assigned to the fields of a class to the types of the fields.
+ * <p/>
+ * Fields whose value can't be converted are left out of the result, the reason is collected as problem. All returned
+ * fields are made accessible. {@literal @}PropertyPrefix fields of type Map&lt;String, String&gt; get the prefix view,
+ * other maps are rejected. Fields of any other type get a {@link SubConfig}, the sub-config itself is created per
+ * injection; types without {@literal @}Property or {@literal @}PropertyPrefix fields are rejected.
+ * <p/>
+ * If an audit is given, every converted field is recorded with its key and converter.
+ */
+final class FieldValueConverter {
+
+	private final List<Exception> problems = new ArrayList<Exception>();
+	private final ValueConverterFactory converterFactory;
+	private final ResolutionAudit audit;
+	private final String file;
+	private final PropertyIndex index;
+
+	/**
+	 * @param converterFactory
+	 * 		the factory of the container
+	 * @param audit
+	 * 		the audit recording the converted fields or null
+	 * @param file
+	 * 		the file as named in {@literal @}PropertyFile
+	 * @param index
+	 * 		the index of the file
+	 */
+	FieldValueConverter(ValueConverterFactory converterFactory, ResolutionAudit audit, String file, PropertyIndex index) {
+		this.converterFactory = converterFactory;
+		this.audit = audit;
+		this.file = file;
+		this.index = index;
+	}
+
+	/**
+	 * Converts the values of the fields of a class
+	 *
+	 * @param className
+	 * 		the name of the class declaring the fields
+	 * @param values
+	 * 		the loaded values, either a raw value or for {@literal @}PropertyPrefix fields the prefix view
+	 * @return the converted values of all fields without problems
+	 */
+	Map<Field, Object> convert(String className, Map<Field, Object> values) {
+		return convert(className, "", values);
+	}
+
+	List<Exception> getProblems() {
+		return problems;
+	}
+
+	/**
+	 * Converts the values of the fields of a class, whose {@literal @}Property keys are relative to scope
+	 */
+	private Map<Field, Object> convert(String className, String scope, Map<Field, Object> values) {
+		Map<Field, Object> convertedValues = new HashMap<Field, Object>();
+		for (Map.Entry<Field, Object> entry : values.entrySet()) {
+			Field field = entry.getKey();
+			Object convertedValue;
+			if (field.isAnnotationPresent(PropertyPrefix.class)) {
+				convertedValue = convertPrefixedValue(className, field, (PropertyIndex.PrefixView) entry.getValue());
+			} else {
+				convertedValue = convertValue(className, scope, field, entry.getValue());
+			}
+			if (convertedValue != null) {
+				field.setAccessible(true);
+				convertedValues.put(field, convertedValue);
+			}
+		}
+		return convertedValues;
+	}
+
+	private Object convertValue(String className, String scope, Field field, Object value) {
+		ValueConverter acceptingConverter = converterFactory.findConverter(field.getType());
+		if (acceptingConverter == null) {
+			problems.add(new InjectionException(String.format(PropertyInjectionTarget.MESSAGE_NO_CONVERTER_FOUND, field.getName(), field.getType(), className)));
+		} else if (value == null) {
+			problems.add(new InjectionException(String.format(PropertyInjectionTarget.MESSAGE_NO_VALUE_FOUND, field.getName(), field.getType(), className)));
+		} else {
+			try {
+				Object convertedValue = acceptingConverter.convert(value);
+				if (audit != null) {
+					String key = field.getAnnotation(Property.class).value();
+					audit.record(file, index.getLocation(), index.getSourceLayer(), scope.isEmpty() ? key : scope + key, className, field.getName(), ValueConverterFactory.getConverterName(acceptingConverter));
+				}
+				return convertedValue;
+			} catch (RuntimeException e) {
+				problems.add(new InjectionException(String.format(PropertyInjectionTarget.MESSAGE_CONVERSION_FAILED, field.getName(), field.getType(), className, e.getMessage()), e));
+			}
+		}
+		return null;
+	}
+
+	private Object convertPrefixedValue(String className, Field field, PropertyIndex.PrefixView view) {
+		if (field.getType().isAssignableFrom(Map.class)) {
+			if (!isStringMap(field.getGenericType())) {
+				problems.add(new InjectionException(String.format(PropertyInjectionTarget.MESSAGE_PREFIX_MAP_TYPE, field.getName(), field.getGenericType(), className)));
+				return null;
+			}
+			if (audit != null) {
+				audit.record(file, index.getLocation(), index.getSourceLayer(), view.getScope(), className, field.getName(), null);
+			}
+			return view;
+		} else if (Map.class.isAssignableFrom(field.getType())) {
+			problems.add(new InjectionException(String.format(PropertyInjectionTarget.MESSAGE_PREFIX_MAP_TYPE, field.getName(), field.getGenericType(), className)));
+			return null;
+		}
+		return createSubConfig(className, field, view);
+	}
+
+	/**
+	 * Checks that type is a raw Map or Map&lt;String, String&gt;, the only maps the prefix view can be assigned to
+	 * without failing on reading the values
+	 */
+	private static boolean isStringMap(Type type) {
+		if (!(type instanceof ParameterizedType)) {
+			return true;
+		}
+		for (Type argument : ((ParameterizedType) type).getActualTypeArguments()) {
+			if (argument != String.class) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Converts the values of the fields of the field's type, whose instances are created per injection
+	 */
+	private Object createSubConfig(String className, Field field, PropertyIndex.PrefixView view) {
+		Class<?> type = field.getType();
+		Map<Field, Object> values = new HashMap<Field, Object>();
+		for (Class<?> declaringClass = type; declaringClass != null && declaringClass != Object.class; declaringClass = declaringClass.getSuperclass()) {
+			for (Field subConfigField : declaringClass.getDeclaredFields()) {
+				if (subConfigField.isAnnotationPresent(Property.class)) {
+					values.put(subConfigField, view.get(subConfigField.getAnnotation(Property.class).value()));
+				} else if (subConfigField.isAnnotationPresent(PropertyPrefix.class)) {
+					values.put(subConfigField, view.withPrefix(subConfigField.getAnnotation(PropertyPrefix.class).value()));
+				}
+			}
+		}
+		if (values.isEmpty()) {
+			problems.add(new InjectionException(String.format(PropertyInjectionTarget.MESSAGE_NO_SUB_CONFIG_PROPERTIES, type.getName())));
+			return null;
+		} else if (view.isEmpty()) {
+			problems.add(new InjectionException(String.format(PropertyInjectionTarget.MESSAGE_NO_VALUE_FOUND, field.getName(), type, className)));
+			return null;
+		}
+		Constructor<?> constructor;
+		try {
+			constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+		} catch (NoSuchMethodException e) {
+			problems.add(new InjectionException(String.format(PropertyInjectionTarget.MESSAGE_NO_SUB_CONFIG_CONSTRUCTOR, type.getName()), e));
+			return null;
+		} catch (SecurityException e) {
+			problems.add(e);
+			return null;
+		}
+		return new SubConfig(constructor, convert(type.getName(), view.getScope(), values));
+	}
+
+	/**
+	 * The converted values of a {@literal @}PropertyPrefix field whose type isn't a Map.
+	 * <p/>
+	 * The sub-config is a mutable object of the application, so every injection gets a new instance. Only the
+	 * converted values are shared.
+	 */
+	static final class SubConfig {
+		private final Constructor<?> constructor;
+		private final Map<Field, Object> values;
+
+		SubConfig(Constructor<?> constructor, Map<Field, Object> values) {
+			this.constructor = constructor;
+			this.values = values;
+		}
+
+		/**
+		 * Returns the value to assign to a field, a new sub-config instance for a sub-config
+		 *
+		 * @param value
+		 * 		a converted value
+		 * @return the value to assign
+		 * @throws InjectionException
+		 * 		if a sub-config couldn't be created
+		 */
+		static Object instantiate(Object value) {
+			return value instanceof SubConfig ? ((SubConfig) value).newInstance() : value;
+		}
+
+		/**
+		 * Creates a new instance and sets its fields
+		 *
+		 * @return the new sub-config
+		 * @throws InjectionException
+		 * 		if the sub-config couldn't be created
+		 */
+		Object newInstance() {
+			try {
+				Object subConfig = constructor.newInstance();
+				for (Map.Entry<Field, Object> entry : values.entrySet()) {
+					entry.getKey().set(subConfig, instantiate(entry.getValue()));
+				}
+				return subConfig;
+			} catch (InvocationTargetException e) {
+				throw new InjectionException(e.getCause());
+			} catch (ReflectiveOperationException e) {
+				throw new InjectionException(e);
+			}
+		}
+	}
+}
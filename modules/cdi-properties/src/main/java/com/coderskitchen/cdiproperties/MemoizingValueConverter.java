@@ -0,0 +1,79 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties;
+
+import com.coderskitchen.cdiproperties.converter.spi.ValueConverter;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches the results of a {@link com.coderskitchen.cdiproperties.converter.spi.Memoizable} converter per value.
+ * Typed converters are bound to one target type, so their memoizing wrapper caches per target type and value.
+ * <p/>
+ * At most {@link #MAX_CACHED_RESULTS} results are cached per converter, further values are converted on every call.
+ *
+ * @param <T>
+ * 		generic type that determines to which type a value can be converted
+ */
+final class MemoizingValueConverter<T> implements ValueConverter<T> {
+
+	static final int MAX_CACHED_RESULTS = 1024;
+
+	private final ValueConverter<T> converter;
+	private final ConcurrentMap<Object, T> results = new ConcurrentHashMap<Object, T>();
+
+	/**
+	 * Constructor accepting the memoized converter
+	 *
+	 * @param converter
+	 * 		- the converter whose results are cached
+	 */
+	MemoizingValueConverter(ValueConverter<T> converter) {
+		this.converter = converter;
+	}
+
+	ValueConverter<T> getConverter() {
+		return converter;
+	}
+
+	@Override
+	public boolean accept(Class<T> valueClass) {
+		return converter.accept(valueClass);
+	}
+
+	@Override
+	public T convert(Object value) {
+		T result = results.get(value);
+		if (result == null) {
+			result = converter.convert(value);
+			if (result != null && results.size() < MAX_CACHED_RESULTS) {
+				T existing = results.putIfAbsent(value, result);
+				if (existing != null) {
+					result = existing;
+				}
+			}
+		}
+		return result;
+	}
+}
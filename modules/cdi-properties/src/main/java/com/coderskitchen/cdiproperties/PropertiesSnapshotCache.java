@@ -0,0 +1,384 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties;
+
+import com.coderskitchen.cdiproperties.audit.SourceLayer;
+import com.coderskitchen.cdiproperties.format.spi.PropertyFormat;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Persistent cache of parsed properties files.
+ * <p/>
+ * For every properties file a snapshot of the parsed and sorted key value pairs is stored in the cache folder. A
+ * snapshot is identified by location and format of the properties file. While size and last modification time of the
+ * file match the snapshot, the snapshot is used without reading the file. Otherwise the file is read and hashed; if
+ * only its modification time changed the snapshot is still used, else the file is parsed and the snapshot replaced.
+ * <p/>
+ * Keys and values are stored as one block of characters, in ISO-8859-1 if possible, so reading a snapshot is a bulk
+ * copy instead of parsing.
+ * <p/>
+ * Snapshots are written to a temporary file first and moved into place afterwards, so several JVMs can share one
+ * cache folder.
+ */
+class PropertiesSnapshotCache {
+
+	private static final int SNAPSHOT_VERSION = 2;
+	private static final String SNAPSHOT_SUFFIX = ".snapshot";
+	private static final String HASH_ALGORITHM = "SHA-1";
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final Charset LATIN1 = Charset.forName("ISO-8859-1");
+	private static final byte LATIN1_CHARACTERS = 0;
+	private static final byte UTF16_CHARACTERS = 1;
+	private static final long UNKNOWN = -1;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final Logger logger = Logger.getLogger(PropertiesSnapshotCache.class.getName());
+	private final Path folder;
+	private final StringPool.Statistics statistics;
+
+	/**
+	 * Constructor accepting the cache folder
+	 *
+	 * @param folder
+	 * 		- the folder containing the snapshots, created if missing
+	 * @param statistics
+	 * 		- the string pool statistics of the deployment
+	 */
+	PropertiesSnapshotCache(Path folder, StringPool.Statistics statistics) {
+		this.folder = folder;
+		this.statistics = statistics;
+	}
+
+	/**
+	 * Loads the properties stored at location, either from a valid snapshot or by parsing the file
+	 *
+	 * @param location
+	 * 		the resolved location of the properties file
+	 * @param format
+	 * 		the format for parsing the file
+	 * @param sourceLayer
+	 * 		the place the file was found
+	 * @return the index of the loaded properties
+	 * @throws IOException
+	 * 		if the properties file couldn't be read
+	 */
+	PropertyIndex load(URL location, PropertyFormat format, SourceLayer sourceLayer) throws IOException {
+		String source = location.toExternalForm() + '#' + format.getClass().getName();
+		Path snapshotFile = folder.resolve(toHex(hash(source.getBytes(UTF8))) + SNAPSHOT_SUFFIX);
+		long[] attributes = readAttributes(location);
+		long size = attributes[0];
+		long lastModified = attributes[1];
+
+		Snapshot snapshot = readSnapshot(snapshotFile, source);
+		if (snapshot != null && size != UNKNOWN && lastModified != UNKNOWN && snapshot.size == size && snapshot.lastModified == lastModified) {
+			PropertyIndex index = snapshot.toIndex(location.toString(), sourceLayer, statistics);
+			if (index != null) {
+				return index;
+			}
+		}
+
+		MessageDigest digest = newDigest();
+		byte[] content = readFully(new DigestInputStream(location.openStream(), digest));
+		byte[] hash = digest.digest();
+		if (snapshot != null && snapshot.size == content.length && Arrays.equals(snapshot.hash, hash)) {
+			PropertyIndex index = snapshot.toIndex(location.toString(), sourceLayer, statistics);
+			if (index != null) {
+				// only the modification time changed, update it so the next start skips reading the file again
+				writeSnapshot(snapshotFile, source, content.length, lastModified, hash, index);
+				return index;
+			}
+		}
+		Properties properties = new Properties();
+		format.read(new ByteArrayInputStream(content), properties);
+		PropertyIndex index = new PropertyIndex(properties, location.toString(), sourceLayer, statistics);
+		writeSnapshot(snapshotFile, source, content.length, lastModified, hash, index);
+		return index;
+	}
+
+	/**
+	 * Returns size and last modification time of the file at location without reading it, {@link #UNKNOWN} if not
+	 * available
+	 */
+	private static long[] readAttributes(URL location) throws IOException {
+		if ("file".equals(location.getProtocol())) {
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(Paths.get(location.toURI()), BasicFileAttributes.class);
+				return new long[]{attributes.size(), attributes.lastModifiedTime().toMillis()};
+			} catch (URISyntaxException e) {
+				return new long[]{UNKNOWN, UNKNOWN};
+			}
+		}
+		if ("jar".equals(location.getProtocol())) {
+			URLConnection connection = location.openConnection();
+			long lastModified = connection.getLastModified();
+			return new long[]{connection.getContentLengthLong(), lastModified == 0 ? UNKNOWN : lastModified};
+		}
+		return new long[]{UNKNOWN, UNKNOWN};
+	}
+
+	private Snapshot readSnapshot(Path snapshotFile, String source) {
+		if (!Files.exists(snapshotFile)) {
+			return null;
+		}
+		try {
+			ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+			if (buffer.getInt() != SNAPSHOT_VERSION) {
+				return null;
+			}
+			byte[] snapshotSource = readBytes(buffer, buffer.getInt());
+			if (snapshotSource == null || !source.equals(new String(snapshotSource, UTF8))) {
+				return null;
+			}
+			long size = buffer.getLong();
+			long lastModified = buffer.getLong();
+			byte[] hash = readBytes(buffer, buffer.getShort() & 0xFFFF);
+			if (hash == null) {
+				return null;
+			}
+			return new Snapshot(size, lastModified, hash, buffer.slice());
+		} catch (IOException e) {
+			logger.log(Level.FINE, "Ignoring unreadable snapshot " + snapshotFile, e);
+			return null;
+		} catch (BufferUnderflowException e) {
+			logger.log(Level.FINE, "Ignoring truncated snapshot " + snapshotFile, e);
+			return null;
+		} catch (IllegalArgumentException e) {
+			logger.log(Level.FINE, "Ignoring corrupt snapshot " + snapshotFile, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Reads length bytes, checking the length read from the snapshot before allocating
+	 *
+	 * @return the bytes or null, if the length is negative or exceeds the rest of the snapshot
+	 */
+	private static byte[] readBytes(ByteBuffer buffer, int length) {
+		if (length < 0 || length > buffer.remaining()) {
+			return null;
+		}
+		byte[] bytes = new byte[length];
+		buffer.get(bytes);
+		return bytes;
+	}
+
+	private void writeSnapshot(Path snapshotFile, String source, long size, long lastModified, byte[] hash, PropertyIndex index) {
+		int entries = index.size();
+		boolean latin1 = true;
+		long characters = 0;
+		for (int i = 0; i < entries; i++) {
+			latin1 = latin1 && isLatin1(index.keyAt(i)) && isLatin1(index.valueAt(i));
+			characters += index.keyAt(i).length() + index.valueAt(i).length();
+		}
+		byte[] sourceBytes = source.getBytes(UTF8);
+		long length = 4 + 4 + sourceBytes.length + 8 + 8 + 2 + hash.length + 4 + 1 + 8L * entries + (latin1 ? 1 : 2) * characters;
+		if (length > Integer.MAX_VALUE) {
+			logger.log(Level.WARNING, "Properties too large for snapshot " + snapshotFile);
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.allocate((int) length);
+		buffer.putInt(SNAPSHOT_VERSION);
+		buffer.putInt(sourceBytes.length).put(sourceBytes);
+		buffer.putLong(size).putLong(lastModified);
+		buffer.putShort((short) hash.length).put(hash);
+		buffer.putInt(entries).put(latin1 ? LATIN1_CHARACTERS : UTF16_CHARACTERS);
+		for (int i = 0; i < entries; i++) {
+			buffer.putInt(index.keyAt(i).length()).putInt(index.valueAt(i).length());
+		}
+		for (int i = 0; i < entries; i++) {
+			putCharacters(buffer, index.keyAt(i), latin1);
+			putCharacters(buffer, index.valueAt(i), latin1);
+		}
+
+		try {
+			Files.createDirectories(folder);
+			Path temporary = Files.createTempFile(folder, snapshotFile.getFileName().toString(), ".tmp");
+			OutputStream file = Files.newOutputStream(temporary);
+			try {
+				file.write(buffer.array());
+			} finally {
+				file.close();
+			}
+			try {
+				Files.move(temporary, snapshotFile, StandardCopyOption.ATOMIC_MOVE);
+			} catch (AtomicMoveNotSupportedException e) {
+				Files.move(temporary, snapshotFile, StandardCopyOption.REPLACE_EXISTING);
+			}
+		} catch (IOException e) {
+			logger.log(Level.WARNING, "Couldn't write snapshot " + snapshotFile, e);
+		}
+	}
+
+	private static boolean isLatin1(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) > 0xFF) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static void putCharacters(ByteBuffer buffer, String value, boolean latin1) {
+		for (int i = 0; i < value.length(); i++) {
+			if (latin1) {
+				buffer.put((byte) value.charAt(i));
+			} else {
+				buffer.putChar(value.charAt(i));
+			}
+		}
+	}
+
+	private static byte[] readFully(InputStream in) throws IOException {
+		try {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = in.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+			}
+			return out.toByteArray();
+		} finally {
+			in.close();
+		}
+	}
+
+	private static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance(HASH_ALGORITHM);
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(HASH_ALGORITHM + " is required by every Java platform", e);
+		}
+	}
+
+	private static byte[] hash(byte[] content) {
+		return newDigest().digest(content);
+	}
+
+	private static String toHex(byte[] bytes) {
+		char[] hex = new char[bytes.length * 2];
+		for (int i = 0; i < bytes.length; i++) {
+			hex[2 * i] = HEX[(bytes[i] >> 4) & 0xF];
+			hex[2 * i + 1] = HEX[bytes[i] & 0xF];
+		}
+		return new String(hex);
+	}
+
+	/**
+	 * Header of a read snapshot and its not yet decoded entries
+	 */
+	private static final class Snapshot {
+		private final long size;
+		private final long lastModified;
+		private final byte[] hash;
+		private final ByteBuffer entries;
+
+		Snapshot(long size, long lastModified, byte[] hash, ByteBuffer entries) {
+			this.size = size;
+			this.lastModified = lastModified;
+			this.hash = hash;
+			this.entries = entries;
+		}
+
+		/**
+		 * Decodes the entries
+		 *
+		 * @return the index or null, if the entries are corrupt
+		 */
+		PropertyIndex toIndex(String location, SourceLayer sourceLayer, StringPool.Statistics statistics) {
+			ByteBuffer buffer = entries.duplicate();
+			if (buffer.remaining() < 5) {
+				return null;
+			}
+			int count = buffer.getInt();
+			byte encoding = buffer.get();
+			if (count < 0 || (long) count * 8 > buffer.remaining() || (encoding != LATIN1_CHARACTERS && encoding != UTF16_CHARACTERS)) {
+				return null;
+			}
+			int[] lengths = new int[2 * count];
+			long characters = 0;
+			for (int i = 0; i < lengths.length; i++) {
+				lengths[i] = buffer.getInt();
+				if (lengths[i] < 0) {
+					return null;
+				}
+				characters += lengths[i];
+			}
+			boolean latin1 = encoding == LATIN1_CHARACTERS;
+			if (characters * (latin1 ? 1 : 2) != buffer.remaining()) {
+				return null;
+			}
+			String[] keys = new String[count];
+			String[] values = new String[count];
+			if (latin1) {
+				byte[] bytes = buffer.array();
+				int offset = buffer.arrayOffset() + buffer.position();
+				for (int i = 0; i < count; i++) {
+					keys[i] = new String(bytes, offset, lengths[2 * i], LATIN1);
+					offset += lengths[2 * i];
+					values[i] = new String(bytes, offset, lengths[2 * i + 1], LATIN1);
+					offset += lengths[2 * i + 1];
+				}
+			} else {
+				char[] chars = new char[(int) characters];
+				buffer.asCharBuffer().get(chars);
+				int offset = 0;
+				for (int i = 0; i < count; i++) {
+					keys[i] = new String(chars, offset, lengths[2 * i]);
+					offset += lengths[2 * i];
+					values[i] = new String(chars, offset, lengths[2 * i + 1]);
+					offset += lengths[2 * i + 1];
+				}
+			}
+			for (int i = 1; i < count; i++) {
+				if (keys[i - 1].compareTo(keys[i]) >= 0) {
+					return null;
+				}
+			}
+			return new PropertyIndex(keys, values, location, sourceLayer, statistics);
+		}
+	}
+}
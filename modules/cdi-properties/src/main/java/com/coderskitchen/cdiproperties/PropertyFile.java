@@ -39,4 +39,14 @@ public @interface PropertyFile {
 	 * @return the value
 	 */
 	String value();
+
+	/**
+	 * Name of the file format, e.g. properties, json or yaml
+	 * <p/>
+	 * By default the format is chosen by the extension of the file name. Files with unknown extensions are read as
+	 * properties files.
+	 *
+	 * @return the format
+	 */
+	String format() default "";
 }
@@ -0,0 +1,91 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties;
+
+import com.coderskitchen.cdiproperties.format.PropertiesFormat;
+import com.coderskitchen.cdiproperties.format.spi.PropertyFormat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.ServiceLoader;
+
+/**
+ * Factory for making the lookup of property formats
+ * <p/>
+ * Each factory loads its own formats, so they aren't shared between CDI containers.
+ */
+public class PropertyFormatFactory {
+	/**
+	 * Exception message when an explicitly named format isn't available
+	 */
+	public static final String MESSAGE_NO_FORMAT_FOUND = "No property format [%s] found for file [%s]";
+
+	private static final PropertyFormat DEFAULT_FORMAT = new PropertiesFormat();
+
+	private final List<PropertyFormat> formats = loadFormats();
+
+	/**
+	 * Finds the format for reading a file.
+	 * <p/>
+	 * An explicitly named format must be available. Otherwise the format is chosen by the extension of the file name,
+	 * falling back to the properties format for unknown extensions.
+	 *
+	 * @param filename the name of the file
+	 * @param format the explicitly named format or an empty string
+	 * @return the accepting format
+	 */
+	public PropertyFormat findFormatForFile(String filename, String format) {
+		if (format != null && !format.isEmpty()) {
+			PropertyFormat acceptingFormat = findAcceptingFormat(format.toLowerCase(Locale.ROOT));
+			if (acceptingFormat == null) {
+				throw new IllegalArgumentException(String.format(MESSAGE_NO_FORMAT_FOUND, format, filename));
+			}
+			return acceptingFormat;
+		}
+		int extensionStart = filename.lastIndexOf('.');
+		if (extensionStart < 0 || extensionStart < filename.lastIndexOf('/')) {
+			return DEFAULT_FORMAT;
+		}
+		PropertyFormat acceptingFormat = findAcceptingFormat(filename.substring(extensionStart + 1).toLowerCase(Locale.ROOT));
+		return acceptingFormat == null ? DEFAULT_FORMAT : acceptingFormat;
+	}
+
+	private PropertyFormat findAcceptingFormat(String format) {
+		for (PropertyFormat propertyFormat : formats) {
+			if (propertyFormat.accept(format)) {
+				return propertyFormat;
+			}
+		}
+		return null;
+	}
+
+	private static List<PropertyFormat> loadFormats() {
+		List<PropertyFormat> formats = new ArrayList<PropertyFormat>();
+		for (PropertyFormat format : ServiceLoader.load(PropertyFormat.class)) {
+			formats.add(format);
+		}
+		return Collections.unmodifiableList(formats);
+	}
+}
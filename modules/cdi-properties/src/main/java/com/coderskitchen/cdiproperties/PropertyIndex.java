@@ -0,0 +1,321 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties;
+
+import com.coderskitchen.cdiproperties.audit.SourceLayer;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Immutable, sorted index of the key value pairs of a loaded file.
+ * <p/>
+ * Keys are kept in sorted arrays, so a single key as well as all keys with a common prefix are found by binary
+ * search. Prefix queries return read only views over a range of the arrays instead of copies. The view of a prefix
+ * is created once and shared by all callers.
+ * <p/>
+ * Keys and values are taken from the {@link StringPool}, so equal strings of different files share one instance.
+ */
+final class PropertyIndex {
+
+	private static final Comparator<Map.Entry<String, String>> BY_KEY = new Comparator<Map.Entry<String, String>>() {
+		@Override
+		public int compare(Map.Entry<String, String> first, Map.Entry<String, String> second) {
+			return first.getKey().compareTo(second.getKey());
+		}
+	};
+
+	private final String[] keys;
+	private final String[] values;
+	private final String location;
+	private final SourceLayer sourceLayer;
+	private final ConcurrentMap<String, PrefixView> views = new ConcurrentHashMap<String, PrefixView>();
+
+	/**
+	 * Builds the index of the given properties
+	 *
+	 * @param properties
+	 * 		- the loaded properties
+	 */
+	PropertyIndex(Properties properties) {
+		this(properties, null, null, new StringPool.Statistics());
+	}
+
+	/**
+	 * Builds the index of the properties loaded from a location
+	 *
+	 * @param properties
+	 * 		- the loaded properties
+	 * @param location
+	 * 		- the resolved location of the file
+	 * @param sourceLayer
+	 * 		- the place the file was loaded from
+	 * @param statistics
+	 * 		- the string pool statistics of the loading deployment
+	 */
+	@SuppressWarnings("unchecked")
+	PropertyIndex(Properties properties, String location, SourceLayer sourceLayer, StringPool.Statistics statistics) {
+		this.location = location;
+		this.sourceLayer = sourceLayer;
+		Map.Entry<String, String>[] entries = new Map.Entry[properties.size()];
+		int size = 0;
+		for (Map.Entry<Object, Object> entry : properties.entrySet()) {
+			entries[size++] = new AbstractMap.SimpleImmutableEntry<String, String>(entry.getKey().toString(), entry.getValue().toString());
+		}
+		Arrays.sort(entries, 0, size, BY_KEY);
+		keys = new String[size];
+		values = new String[size];
+		for (int i = 0; i < size; i++) {
+			keys[i] = StringPool.canonicalize(entries[i].getKey(), statistics);
+			values[i] = StringPool.canonicalize(entries[i].getValue(), statistics);
+		}
+	}
+
+	/**
+	 * Builds the index of keys that are already sorted, e.g. read from a snapshot. The arrays are taken over.
+	 *
+	 * @param keys
+	 * 		- the keys in ascending order without duplicates
+	 * @param values
+	 * 		- the values of the keys
+	 * @param location
+	 * 		- the resolved location of the file
+	 * @param sourceLayer
+	 * 		- the place the file was loaded from
+	 * @param statistics
+	 * 		- the string pool statistics of the loading deployment
+	 */
+	PropertyIndex(String[] keys, String[] values, String location, SourceLayer sourceLayer, StringPool.Statistics statistics) {
+		this.location = location;
+		this.sourceLayer = sourceLayer;
+		this.keys = keys;
+		this.values = values;
+		for (int i = 0; i < keys.length; i++) {
+			keys[i] = StringPool.canonicalize(keys[i], statistics);
+			values[i] = StringPool.canonicalize(values[i], statistics);
+		}
+	}
+
+	int size() {
+		return keys.length;
+	}
+
+	String getLocation() {
+		return location;
+	}
+
+	SourceLayer getSourceLayer() {
+		return sourceLayer;
+	}
+
+	String keyAt(int index) {
+		return keys[index];
+	}
+
+	String valueAt(int index) {
+		return values[index];
+	}
+
+	/**
+	 * Returns the value of the key
+	 *
+	 * @param key
+	 * 		the key
+	 * @return the value or null, if the key is unknown
+	 */
+	String get(String key) {
+		int index = Arrays.binarySearch(keys, key);
+		return index < 0 ? null : values[index];
+	}
+
+	/**
+	 * Returns a read only view of all keys starting with prefix followed by a dot. The keys of the view are relative to
+	 * the prefix, e.g. the view of {@code db.pool} contains {@code size} for {@code db.pool.size}.
+	 *
+	 * @param prefix
+	 * 		the prefix, with or without trailing dot. An empty prefix returns a view of all keys
+	 * @return the shared view of the prefix
+	 */
+	PrefixView withPrefix(String prefix) {
+		String scope = prefix.isEmpty() || prefix.endsWith(".") ? prefix : prefix + ".";
+		PrefixView view = views.get(scope);
+		if (view == null) {
+			view = new PrefixView(scope);
+			PrefixView existing = views.putIfAbsent(scope, view);
+			if (existing != null) {
+				view = existing;
+			}
+		}
+		return view;
+	}
+
+	/**
+	 * Returns the index of the first key that is greater or equal to the key
+	 */
+	private int lowerBound(String key) {
+		int index = Arrays.binarySearch(keys, key);
+		return index < 0 ? -index - 1 : index;
+	}
+
+	/**
+	 * Read only view of the keys with a common prefix
+	 */
+	final class PrefixView extends AbstractMap<String, String> {
+		private final String scope;
+		private final int from;
+		private final int to;
+		private Set<Map.Entry<String, String>> entrySet;
+
+		private PrefixView(String scope) {
+			this.scope = scope;
+			if (scope.isEmpty()) {
+				from = 0;
+				to = keys.length;
+			} else {
+				// all keys starting with scope are sorted before scope with its last character incremented
+				char last = scope.charAt(scope.length() - 1);
+				from = lowerBound(scope);
+				to = lowerBound(scope.substring(0, scope.length() - 1) + (char) (last + 1));
+			}
+		}
+
+		/**
+		 * Returns the view of a nested prefix
+		 *
+		 * @param prefix
+		 * 		the prefix relative to this view
+		 * @return the shared view of the nested prefix
+		 */
+		PrefixView withPrefix(String prefix) {
+			return PropertyIndex.this.withPrefix(scope + prefix);
+		}
+
+		/**
+		 * @return the prefix of this view followed by a dot, or empty for the view of all keys
+		 */
+		String getScope() {
+			return scope;
+		}
+
+		@Override
+		public int size() {
+			return to - from;
+		}
+
+		@Override
+		public boolean containsKey(Object key) {
+			return indexOf(key) >= 0;
+		}
+
+		@Override
+		public String get(Object key) {
+			int index = indexOf(key);
+			return index < 0 ? null : values[index];
+		}
+
+		private int indexOf(Object key) {
+			if (!(key instanceof String)) {
+				return -1;
+			}
+			String relativeKey = (String) key;
+			int low = from;
+			int high = to - 1;
+			while (low <= high) {
+				int middle = (low + high) >>> 1;
+				int comparison = compareRelative(keys[middle], relativeKey);
+				if (comparison < 0) {
+					low = middle + 1;
+				} else if (comparison > 0) {
+					high = middle - 1;
+				} else {
+					return middle;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Compares a key of the range with a relative key, all keys of the range start with scope
+		 */
+		private int compareRelative(String key, String relativeKey) {
+			int offset = scope.length();
+			int length = Math.min(key.length() - offset, relativeKey.length());
+			for (int i = 0; i < length; i++) {
+				char c = key.charAt(offset + i);
+				char r = relativeKey.charAt(i);
+				if (c != r) {
+					return c - r;
+				}
+			}
+			return key.length() - offset - relativeKey.length();
+		}
+
+		@Override
+		public Set<Map.Entry<String, String>> entrySet() {
+			if (entrySet == null) {
+				entrySet = new AbstractSet<Map.Entry<String, String>>() {
+					@Override
+					public Iterator<Map.Entry<String, String>> iterator() {
+						return new Iterator<Map.Entry<String, String>>() {
+							private int next = from;
+
+							@Override
+							public boolean hasNext() {
+								return next < to;
+							}
+
+							@Override
+							public Map.Entry<String, String> next() {
+								if (next >= to) {
+									throw new NoSuchElementException();
+								}
+								int index = next++;
+								return new SimpleImmutableEntry<String, String>(keys[index].substring(scope.length()), values[index]);
+							}
+
+							@Override
+							public void remove() {
+								throw new UnsupportedOperationException();
+							}
+						};
+					}
+
+					@Override
+					public int size() {
+						return to - from;
+					}
+				};
+			}
+			return entrySet;
+		}
+	}
+}
@@ -0,0 +1,156 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties;
+
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+
+/**
+ * Registry of the parsed files shared by all CDI containers of the JVM.
+ * <p/>
+ * Indexes are immutable, so containers resolving a file to the same location reuse the index of the first container
+ * instead of parsing the file again. An index is only reused while the version of the file, i.e. its size and last
+ * modification time, is unchanged.
+ * <p/>
+ * The registry references the indexes softly. A soft reference isn't cleared when the last container using it is
+ * shut down, but only when the garbage collector needs the memory or drops it by its least recently used policy. So
+ * the parsed content of undeployed applications, secrets included, can stay in the registry until then.
+ */
+final class PropertyIndexRegistry {
+
+	private static final Map<String, Entry> INDEXES = new HashMap<String, Entry>();
+	private static final ReferenceQueue<PropertyIndex> COLLECTED = new ReferenceQueue<PropertyIndex>();
+
+	/**
+	 * Utility class needs a private constructor
+	 */
+	private PropertyIndexRegistry() {
+	}
+
+	/**
+	 * Determines the version of the file at location without reading it. Only files in the file system and in jar
+	 * archives are versioned.
+	 *
+	 * @param location
+	 * 		the resolved location of the file
+	 * @return the version or null, if the version is unknown and the file must not be shared
+	 * @throws IOException
+	 * 		if the attributes of the file couldn't be read
+	 */
+	static String versionOf(URL location) throws IOException {
+		if ("file".equals(location.getProtocol())) {
+			Path path;
+			try {
+				path = Paths.get(location.toURI());
+			} catch (URISyntaxException e) {
+				return null;
+			} catch (IllegalArgumentException e) {
+				return null;
+			}
+			return Files.size(path) + "@" + Files.getLastModifiedTime(path).toMillis();
+		}
+		if ("jar".equals(location.getProtocol())) {
+			URLConnection connection = location.openConnection();
+			if (connection instanceof JarURLConnection) {
+				JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+				if (entry != null && entry.getSize() >= 0 && entry.getTime() >= 0) {
+					return entry.getSize() + "@" + entry.getTime();
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the registered index of a source
+	 *
+	 * @param source
+	 * 		the identity of the file, including its location and format
+	 * @param version
+	 * 		the current version of the file
+	 * @return the index or null, if no index of this version is registered
+	 */
+	static PropertyIndex get(String source, String version) {
+		synchronized (INDEXES) {
+			purgeCollected();
+			Entry entry = INDEXES.get(source);
+			return entry == null || !entry.version.equals(version) ? null : entry.get();
+		}
+	}
+
+	/**
+	 * Registers the index of a source, replacing the index of other versions
+	 *
+	 * @param source
+	 * 		the identity of the file, including its location and format
+	 * @param version
+	 * 		the version of the file the index was built from
+	 * @param index
+	 * 		the index
+	 * @return the index to use, the already registered one if another container was faster
+	 */
+	static PropertyIndex register(String source, String version, PropertyIndex index) {
+		synchronized (INDEXES) {
+			purgeCollected();
+			Entry entry = INDEXES.get(source);
+			PropertyIndex registered = entry == null || !entry.version.equals(version) ? null : entry.get();
+			if (registered != null) {
+				return registered;
+			}
+			INDEXES.put(source, new Entry(source, version, index));
+			return index;
+		}
+	}
+
+	private static void purgeCollected() {
+		for (Reference<? extends PropertyIndex> reference = COLLECTED.poll(); reference != null; reference = COLLECTED.poll()) {
+			Entry entry = (Entry) reference;
+			if (INDEXES.get(entry.source) == entry) {
+				INDEXES.remove(entry.source);
+			}
+		}
+	}
+
+	private static final class Entry extends SoftReference<PropertyIndex> {
+		private final String source;
+		private final String version;
+
+		Entry(String source, String version, PropertyIndex index) {
+			super(index, COLLECTED);
+			this.source = source;
+			this.version = version;
+		}
+	}
+}
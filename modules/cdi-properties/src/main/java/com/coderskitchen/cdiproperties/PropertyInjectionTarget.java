@@ -22,20 +22,21 @@
  */
 package com.coderskitchen.cdiproperties;
 
-import com.coderskitchen.cdiproperties.converter.spi.ValueConverter;
-
 import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.inject.InjectionException;
 import javax.enterprise.inject.spi.InjectionPoint;
 import javax.enterprise.inject.spi.InjectionTarget;
 import javax.enterprise.inject.spi.ProcessInjectionTarget;
 import java.lang.reflect.Field;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
 
 /**
  * Injection target implementation that takes care of injecting properties read from a property file
+ * <p/>
+ * The values are either passed in already converted, or loaded once by a loader on the first injection. Afterwards
+ * injecting an instance only sets the fields and creates a new instance of each {@literal @}PropertyPrefix sub-config.
  *
  * Created by peter on 2/4/14.
  */
@@ -43,55 +44,105 @@ public class PropertyInjectionTarget<T> implements InjectionTarget<T> {
 
 	public static final String MESSAGE_NO_CONVERTER_FOUND = "For field %s of type %s in class %s no value converter was found";
 	public static final String MESSAGE_NO_VALUE_FOUND = "For field %s of type %s in class %s no value or default was defined";
-	private Map<Field, Object> injectableValues = new HashMap<Field, Object>();
-	private final ProcessInjectionTarget<T> pit;
+	public static final String MESSAGE_NO_SUB_CONFIG_CONSTRUCTOR = "Class %s injected via @PropertyPrefix needs a no-arg constructor";
+	public static final String MESSAGE_NO_SUB_CONFIG_PROPERTIES = "Class %s injected via @PropertyPrefix declares no @Property or @PropertyPrefix fields";
+	public static final String MESSAGE_PREFIX_MAP_TYPE = "For field %s of type %s in class %s only Map<String, String> is supported for @PropertyPrefix maps";
+	public static final String MESSAGE_CONVERSION_FAILED = "For field %s of type %s in class %s the value couldn't be converted: %s";
+	private volatile Map<Field, Object> injectableValues;
+	private final Callable<Map<Field, Object>> loader;
 	private final InjectionTarget<T> it;
 
 	/**
 	 * Constructor accepting all required values for injection
 	 *
 	 * @param injectableValues
-	 * 		- injectable values for this instances of this type
-	 * @param pit
-	 * 		- the process injection target
+	 * 		- converted values for all instances of this type, the fields must be accessible
 	 * @param it
 	 * 		- The current instance to be injected
 	 */
-	public PropertyInjectionTarget(final Map<Field, Object> injectableValues, final ProcessInjectionTarget<T> pit, InjectionTarget<T> it) {
+	public PropertyInjectionTarget(final Map<Field, Object> injectableValues, InjectionTarget<T> it) {
 		this.injectableValues = injectableValues;
-		this.pit = pit;
+		this.loader = null;
 		this.it = it;
+	}
 
+	/**
+	 * Constructor accepting all required values for injection
+	 *
+	 * @param injectableValues
+	 * 		- injectable values for this instances of this type, converted on first injection
+	 * @param pit
+	 * 		- the process injection target, receiving the problems of the conversion as definition errors
+	 * @param it
+	 * 		- The current instance to be injected
+	 * @deprecated converts with the JVM-wide default {@link ValueConverterFactory} and reports problems only on first
+	 * injection, use {@link #PropertyInjectionTarget(Map, InjectionTarget)} with values converted by the container
+	 */
+	@Deprecated
+	public PropertyInjectionTarget(final Map<Field, Object> injectableValues, final ProcessInjectionTarget<T> pit, InjectionTarget<T> it) {
+		this(new Callable<Map<Field, Object>>() {
+			@Override
+			public Map<Field, Object> call() {
+				FieldValueConverter converter = new FieldValueConverter(ValueConverterFactory.getDefault(), null, null, null);
+				Map<Field, Object> convertedValues = converter.convert(pit.getAnnotatedType().getJavaClass().getName(), injectableValues);
+				for (Exception problem : converter.getProblems()) {
+					pit.addDefinitionError(problem);
+				}
+				return convertedValues;
+			}
+		}, it);
+	}
+
+	/**
+	 * Constructor accepting a loader that provides the values on first injection
+	 *
+	 * @param loader
+	 * 		- loads the converted values for all instances of this type, called at most once successfully
+	 * @param it
+	 * 		- The current instance to be injected
+	 */
+	public PropertyInjectionTarget(final Callable<Map<Field, Object>> loader, InjectionTarget<T> it) {
+		this.loader = loader;
+		this.it = it;
 	}
 
 	@Override
 	public void inject(T instance, CreationalContext<T> ctx) {
 		it.inject(instance, ctx);
-		for (Field field : injectableValues.keySet()) {
-			Object value = injectableValues.get(field);
-			Class<?> type = field.getType();
-			ValueConverter acceptingConverter = ValueConverterFactory.findConverterForFieldType(type);
-			setFieldValueOrAddDefinitionError(instance, field, value, acceptingConverter);
+		for (Map.Entry<Field, Object> injectableValue : load().entrySet()) {
+			try {
+				injectableValue.getKey().set(instance, FieldValueConverter.SubConfig.instantiate(injectableValue.getValue()));
+			} catch (IllegalAccessException e) {
+				throw new InjectionException(e);
+			}
 		}
 	}
 
-
-	private void setFieldValueOrAddDefinitionError(T instance, Field field, Object value, ValueConverter acceptingConverter) {
-		if (acceptingConverter == null) {
-			pit.addDefinitionError(new InjectionException(String.format(MESSAGE_NO_CONVERTER_FOUND, field.getName(), field.getType(), pit.getAnnotatedType().getJavaClass().getName())));
-		} else if (value == null) {
-			pit.addDefinitionError(new InjectionException(String.format(MESSAGE_NO_VALUE_FOUND, field.getName(), field.getType(), pit.getAnnotatedType().getJavaClass().getName())));
-		} else {
-			try {
-				Object convert = acceptingConverter.convert(value);
-				boolean accessible = field.isAccessible();
-				field.setAccessible(true);
-				field.set(instance, convert);
-				field.setAccessible(accessible);
-			} catch (IllegalAccessException e) {
-				pit.addDefinitionError(e);
+	/**
+	 * Returns the injectable values, loading them if not done yet
+	 *
+	 * @return the converted values per field
+	 * @throws InjectionException
+	 * 		if the values couldn't be loaded
+	 */
+	Map<Field, Object> load() {
+		Map<Field, Object> values = injectableValues;
+		if (values == null) {
+			synchronized (this) {
+				values = injectableValues;
+				if (values == null) {
+					try {
+						values = loader.call();
+					} catch (InjectionException e) {
+						throw e;
+					} catch (Exception e) {
+						throw new InjectionException(e);
+					}
+					injectableValues = values;
+				}
 			}
 		}
+		return values;
 	}
 
 	@Override
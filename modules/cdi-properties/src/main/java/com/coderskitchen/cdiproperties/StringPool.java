@@ -0,0 +1,140 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Weak pool of the keys and values of all loaded files.
+ * <p/>
+ * Equal strings of different files are replaced by one canonical instance. The pool only references its strings
+ * weakly, so strings of undeployed applications are collected as usual.
+ * <p/>
+ * Lookups are counted per deployment in {@link Statistics}. A duplicate only counts as a saving if its canonical
+ * instance was pooled by the same deployment. Instances pooled by other deployments are counted as shared without
+ * a saving, because they may belong to an undeployed application that is just not collected yet.
+ */
+final class StringPool {
+
+	/**
+	 * Estimated size of a String instance without its characters, including the header of the character array
+	 */
+	private static final int STRING_OVERHEAD_BYTES = 40;
+
+	private static final Map<String, PooledString> POOL = new WeakHashMap<String, PooledString>();
+
+	/**
+	 * Utility class needs a private constructor
+	 */
+	private StringPool() {
+	}
+
+	/**
+	 * Returns the canonical instance of value
+	 *
+	 * @param value
+	 * 		the string
+	 * @param statistics
+	 * 		the statistics of the deployment loading the string
+	 * @return an equal string, shared by all callers
+	 */
+	static String canonicalize(String value, Statistics statistics) {
+		synchronized (POOL) {
+			statistics.lookups++;
+			PooledString reference = POOL.get(value);
+			String canonical = reference == null ? null : reference.get();
+			if (canonical != null) {
+				if (reference.owner == statistics) {
+					statistics.duplicates++;
+					statistics.savedBytes += STRING_OVERHEAD_BYTES + 2L * value.length();
+				} else {
+					statistics.shared++;
+				}
+				return canonical;
+			}
+			POOL.put(value, new PooledString(value, statistics));
+			return value;
+		}
+	}
+
+	/**
+	 * Weak reference to a canonical string and the statistics of the deployment that pooled it
+	 */
+	private static final class PooledString extends WeakReference<String> {
+		private final Statistics owner;
+
+		PooledString(String value, Statistics owner) {
+			super(value);
+			this.owner = owner;
+		}
+	}
+
+	/**
+	 * Pool statistics of one deployment
+	 */
+	static final class Statistics {
+		private long lookups;
+		private long duplicates;
+		private long shared;
+		private long savedBytes;
+
+		/**
+		 * @return the number of strings of this deployment passed to the pool
+		 */
+		long getLookups() {
+			synchronized (POOL) {
+				return lookups;
+			}
+		}
+
+		/**
+		 * @return the number of strings replaced by a canonical instance of this deployment
+		 */
+		long getDuplicates() {
+			synchronized (POOL) {
+				return duplicates;
+			}
+		}
+
+		/**
+		 * @return the number of strings replaced by a canonical instance of another deployment
+		 */
+		long getShared() {
+			synchronized (POOL) {
+				return shared;
+			}
+		}
+
+		/**
+		 * @return the estimated heap saved by replacing duplicates within this deployment, assuming two bytes per
+		 * character
+		 */
+		long getSavedBytes() {
+			synchronized (POOL) {
+				return savedBytes;
+			}
+		}
+	}
+}
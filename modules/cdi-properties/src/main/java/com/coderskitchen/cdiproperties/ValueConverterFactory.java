@@ -22,22 +22,48 @@
  */
 package com.coderskitchen.cdiproperties;
 
+import com.coderskitchen.cdiproperties.converter.spi.Memoizable;
+import com.coderskitchen.cdiproperties.converter.spi.TypedValueConverter;
 import com.coderskitchen.cdiproperties.converter.spi.ValueConverter;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Factory for making the lookup of value converter
+ * <p/>
+ * Each factory loads its own converters, so the converters and their caches aren't shared between CDI containers.
+ * {@link TypedValueConverter}s are asked after all {@link ValueConverter}s and are bound once per field type.
+ * Converters marked as {@link Memoizable} are wrapped, so their results are cached per target type and value.
  *
  * Created by peter on 2/21/14.
  */
 public class ValueConverterFactory {
-	private static final ServiceLoader<ValueConverter> CONVERTERS  = ServiceLoader.load(ValueConverter.class);
+	private final List<ValueConverter> converters = loadConverters();
+	private final List<TypedValueConverter> typedConverters = loadTypedConverters();
+	private final ConcurrentMap<Class<?>, ValueConverter> boundConverters = new ConcurrentHashMap<Class<?>, ValueConverter>();
 
 	/**
-	 * Utility class needs a private constructor
+	 * Finds a accepting converter for the given type using the converters of a JVM-wide default factory.
+	 * @param type the lookup type
+	 * @return the accepting converter or null
+	 * @deprecated the default factory shares its converters and caches between all CDI containers, use
+	 * {@link #findConverter(Class)} of the factory owned by the container instead
+	 */
+	@Deprecated
+	public static ValueConverter findConverterForFieldType(Class<?> type) {
+		return getDefault().findConverter(type);
+	}
+
+	/**
+	 * @return the JVM-wide factory behind the deprecated static API
 	 */
-	private ValueConverterFactory() {
+	static ValueConverterFactory getDefault() {
+		return DefaultFactory.INSTANCE;
 	}
 
 	/**
@@ -45,19 +71,73 @@ public class ValueConverterFactory {
 	 * @param type the lookup type
 	 * @return the accepting converter or null
 	 */
-	public static ValueConverter findConverterForFieldType(Class<?> type) {
-		ValueConverter acceptingConverter = null;
-
+	public ValueConverter findConverter(Class<?> type) {
 		if(type == null) {
 			return null;
 		}
 
-		for (ValueConverter converter : CONVERTERS) {
+		for (ValueConverter converter : converters) {
+			if (converter.accept(type)) {
+				return converter;
+			}
+		}
+		return findBoundConverter(type);
+	}
+
+	/**
+	 * Returns the class name of the converter behind the wrappers added by this factory
+	 *
+	 * @param converter
+	 * 		a converter returned by this factory
+	 * @return the class name of the registered or bound converter
+	 */
+	static String getConverterName(ValueConverter converter) {
+		ValueConverter registered = converter;
+		if (registered instanceof MemoizingValueConverter) {
+			registered = ((MemoizingValueConverter) registered).getConverter();
+		}
+		return registered.getClass().getName();
+	}
+
+	@SuppressWarnings("unchecked")
+	private ValueConverter findBoundConverter(Class<?> type) {
+		ValueConverter boundConverter = boundConverters.get(type);
+		if (boundConverter != null) {
+			return boundConverter;
+		}
+		for (TypedValueConverter converter : typedConverters) {
 			if (converter.accept(type)) {
-				acceptingConverter = converter;
-				break;
+				boundConverter = converter.bind(type);
+				if (converter instanceof Memoizable) {
+					boundConverter = new MemoizingValueConverter(boundConverter);
+				}
+				ValueConverter existing = boundConverters.putIfAbsent(type, boundConverter);
+				return existing == null ? boundConverter : existing;
 			}
 		}
-		return acceptingConverter;
+		return null;
+	}
+
+	/**
+	 * Holder of the factory behind the deprecated static lookup, created on first use only
+	 */
+	private static final class DefaultFactory {
+		private static final ValueConverterFactory INSTANCE = new ValueConverterFactory();
+	}
+
+	private static List<ValueConverter> loadConverters() {
+		List<ValueConverter> converters = new ArrayList<ValueConverter>();
+		for (ValueConverter converter : ServiceLoader.load(ValueConverter.class)) {
+			converters.add(converter instanceof Memoizable ? new MemoizingValueConverter(converter) : converter);
+		}
+		return Collections.unmodifiableList(converters);
+	}
+
+	private static List<TypedValueConverter> loadTypedConverters() {
+		List<TypedValueConverter> converters = new ArrayList<TypedValueConverter>();
+		for (TypedValueConverter converter : ServiceLoader.load(TypedValueConverter.class)) {
+			converters.add(converter);
+		}
+		return Collections.unmodifiableList(converters);
 	}
 }
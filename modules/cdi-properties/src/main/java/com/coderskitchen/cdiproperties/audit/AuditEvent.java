@@ -0,0 +1,119 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.audit;
+
+/**
+ * Records that a key of a properties file was resolved for a field.
+ * <p/>
+ * Events passed to an {@link com.coderskitchen.cdiproperties.audit.spi.AuditSink} are slots of a ring buffer and are
+ * reused as soon as the sink returns. Sinks that keep an event must keep a {@link #copy()}.
+ */
+public final class AuditEvent {
+	private long timestamp;
+	private String file;
+	private String location;
+	private SourceLayer sourceLayer;
+	private String key;
+	private String targetClass;
+	private String targetField;
+	private String converter;
+
+	AuditEvent() {
+	}
+
+	void set(long timestamp, String file, String location, SourceLayer sourceLayer, String key, String targetClass, String targetField, String converter) {
+		this.timestamp = timestamp;
+		this.file = file;
+		this.location = location;
+		this.sourceLayer = sourceLayer;
+		this.key = key;
+		this.targetClass = targetClass;
+		this.targetField = targetField;
+		this.converter = converter;
+	}
+
+	/**
+	 * @return a copy of this event that isn't reused
+	 */
+	public AuditEvent copy() {
+		AuditEvent copy = new AuditEvent();
+		copy.set(timestamp, file, location, sourceLayer, key, targetClass, targetField, converter);
+		return copy;
+	}
+
+	/**
+	 * @return the time of the resolution in milliseconds since the epoch
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	/**
+	 * @return the file as named in {@literal @}PropertyFile
+	 */
+	public String getFile() {
+		return file;
+	}
+
+	/**
+	 * @return the resolved location of the file
+	 */
+	public String getLocation() {
+		return location;
+	}
+
+	public SourceLayer getSourceLayer() {
+		return sourceLayer;
+	}
+
+	/**
+	 * @return the resolved key, for {@literal @}PropertyPrefix fields of type Map the prefix followed by a dot
+	 */
+	public String getKey() {
+		return key;
+	}
+
+	/**
+	 * @return the name of the class declaring the target field
+	 */
+	public String getTargetClass() {
+		return targetClass;
+	}
+
+	public String getTargetField() {
+		return targetField;
+	}
+
+	/**
+	 * @return the class name of the converter, or null if the field received a view of the properties
+	 */
+	public String getConverter() {
+		return converter;
+	}
+
+	@Override
+	public String toString() {
+		return key + " -> " + targetClass + "." + targetField + " (file " + file + " at " + location + " from " + sourceLayer
+				+ (converter == null ? "" : ", converted by " + converter) + ")";
+	}
+}
@@ -0,0 +1,238 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.audit;
+
+import com.coderskitchen.cdiproperties.audit.spi.AuditSink;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.ServiceLoader;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Audit log of the resolution of properties to fields.
+ * <p/>
+ * Recorded events are written into a ring buffer of preallocated slots, so recording neither allocates nor does any
+ * I/O. A background daemon thread drains the buffer, keeps a copy of each event for {@link #getTrace()} and passes it
+ * to the registered {@link AuditSink}s. Recording never waits for the background thread: events that don't fit into
+ * a full buffer are dropped and counted.
+ * <p/>
+ * Dropped events are missing from the trace as well, so {@link #getTrace()} fails once an event was dropped instead of
+ * returning an incomplete trace.
+ */
+public final class ResolutionAudit {
+	public static final String MESSAGE_SINK_FAILED = "Audit sink %s failed";
+	public static final String MESSAGE_TRACE_INCOMPLETE = "The resolution trace is incomplete, %d events were dropped because the audit buffer was full";
+
+	private static final Logger LOGGER = Logger.getLogger(ResolutionAudit.class.getName());
+
+	private final AuditEvent[] slots;
+	private final int mask;
+	private final List<AuditSink> sinks;
+	private final List<AuditEvent> trace = new ArrayList<AuditEvent>();
+	private final Object lock = new Object();
+	private final Thread drainer;
+
+	// guarded by lock, head is the sequence of the next recorded event, tail the sequence of the next drained event
+	private long head;
+	private long tail;
+	private long dropped;
+	private boolean drainerWaiting;
+	private boolean closed;
+
+	/**
+	 * Creates an audit with the sinks registered in META-INF/services
+	 *
+	 * @param capacity
+	 * 		the minimal number of slots of the buffer, rounded up to a power of two
+	 */
+	public ResolutionAudit(int capacity) {
+		this(capacity, ServiceLoader.load(AuditSink.class));
+	}
+
+	/**
+	 * Creates an audit with the given sinks
+	 *
+	 * @param capacity
+	 * 		the minimal number of slots of the buffer, rounded up to a power of two
+	 * @param sinks
+	 * 		the sinks receiving the events
+	 */
+	public ResolutionAudit(int capacity, Iterable<AuditSink> sinks) {
+		if (capacity < 1 || capacity > 1 << 30) {
+			throw new IllegalArgumentException("Invalid audit buffer capacity: " + capacity);
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size < capacity) {
+			size <<= 1;
+		}
+		slots = new AuditEvent[size];
+		for (int i = 0; i < size; i++) {
+			slots[i] = new AuditEvent();
+		}
+		mask = size - 1;
+		List<AuditSink> sinkList = new ArrayList<AuditSink>();
+		for (AuditSink sink : sinks) {
+			sinkList.add(sink);
+		}
+		this.sinks = Collections.unmodifiableList(sinkList);
+		drainer = new Thread(new Drainer(), "cdi-properties-audit");
+		drainer.setDaemon(true);
+		drainer.start();
+	}
+
+	/**
+	 * Records the resolution of a key. Returns immediately, if the buffer is full the event is dropped.
+	 *
+	 * @param file
+	 * 		the file as named in {@literal @}PropertyFile
+	 * @param location
+	 * 		the resolved location of the file
+	 * @param sourceLayer
+	 * 		the place the file was loaded from
+	 * @param key
+	 * 		the resolved key
+	 * @param targetClass
+	 * 		the name of the class declaring the field
+	 * @param targetField
+	 * 		the name of the field
+	 * @param converter
+	 * 		the class name of the converter or null
+	 */
+	public void record(String file, String location, SourceLayer sourceLayer, String key, String targetClass, String targetField, String converter) {
+		long timestamp = System.currentTimeMillis();
+		synchronized (lock) {
+			if (closed || head - tail == slots.length) {
+				dropped++;
+				return;
+			}
+			slots[(int) (head & mask)].set(timestamp, file, location, sourceLayer, key, targetClass, targetField, converter);
+			head++;
+			if (drainerWaiting) {
+				lock.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Returns all events recorded so far. Waits until the events recorded before the call are drained.
+	 *
+	 * @return the events in the order of recording
+	 * @throws InterruptedException
+	 * 		if interrupted while waiting for the drain
+	 * @throws IllegalStateException
+	 * 		if events were dropped, the trace would be incomplete then
+	 */
+	public List<AuditEvent> getTrace() throws InterruptedException {
+		synchronized (lock) {
+			if (dropped > 0) {
+				throw new IllegalStateException(String.format(MESSAGE_TRACE_INCOMPLETE, dropped));
+			}
+			long recorded = head;
+			while (tail < recorded && drainer.isAlive()) {
+				lock.wait();
+			}
+		}
+		synchronized (trace) {
+			return Collections.unmodifiableList(new ArrayList<AuditEvent>(trace));
+		}
+	}
+
+	/**
+	 * @return the number of events dropped because the buffer was full
+	 */
+	public long getDroppedEvents() {
+		synchronized (lock) {
+			return dropped;
+		}
+	}
+
+	/**
+	 * Drains the remaining events and stops the background thread. Events recorded afterwards are dropped.
+	 *
+	 * @throws InterruptedException
+	 * 		if interrupted while waiting for the background thread
+	 */
+	public void close() throws InterruptedException {
+		synchronized (lock) {
+			closed = true;
+			lock.notifyAll();
+		}
+		drainer.join();
+	}
+
+	private void dispatch(AuditEvent event) {
+		synchronized (trace) {
+			trace.add(event.copy());
+		}
+		for (AuditSink sink : sinks) {
+			try {
+				sink.accept(event);
+			} catch (RuntimeException e) {
+				LOGGER.log(Level.WARNING, String.format(MESSAGE_SINK_FAILED, sink.getClass().getName()), e);
+			}
+		}
+	}
+
+	/**
+	 * Passes the recorded events to the sinks, outside of the lock so recording isn't slowed down by the sinks
+	 */
+	private final class Drainer implements Runnable {
+		@Override
+		public void run() {
+			while (true) {
+				long from;
+				long to;
+				synchronized (lock) {
+					try {
+						while (tail == head && !closed) {
+							drainerWaiting = true;
+							lock.wait();
+						}
+					} catch (InterruptedException e) {
+						lock.notifyAll();
+						return;
+					} finally {
+						drainerWaiting = false;
+					}
+					if (tail == head) {
+						lock.notifyAll();
+						return;
+					}
+					from = tail;
+					to = head;
+				}
+				// the slots between tail and head are not reused until tail is advanced
+				for (long sequence = from; sequence < to; sequence++) {
+					dispatch(slots[(int) (sequence & mask)]);
+				}
+				synchronized (lock) {
+					tail = to;
+					lock.notifyAll();
+				}
+			}
+		}
+	}
+}
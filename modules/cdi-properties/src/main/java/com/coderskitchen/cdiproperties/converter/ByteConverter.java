@@ -37,6 +37,6 @@ public class ByteConverter implements ValueConverter<Byte> {
 
 	@Override
 	public Byte convert(Object value) {
-		return Byte.valueOf(value.toString());
+		return (byte) NumberParser.parseLong(NumberParser.asCharSequence(value), Byte.MIN_VALUE, Byte.MAX_VALUE);
 	}
 }
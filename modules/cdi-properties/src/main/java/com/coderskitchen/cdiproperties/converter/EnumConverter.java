@@ -0,0 +1,64 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.converter;
+
+import com.coderskitchen.cdiproperties.converter.spi.TypedValueConverter;
+import com.coderskitchen.cdiproperties.converter.spi.ValueConverter;
+
+/**
+ * Converts value objects to the constant of an enum with the same name
+ */
+@SuppressWarnings("unchecked")
+public class EnumConverter implements TypedValueConverter<Enum> {
+
+	@Override
+	public boolean accept(Class<Enum> valueClass) {
+		return valueClass.isEnum();
+	}
+
+	@Override
+	public ValueConverter<Enum> bind(Class<Enum> targetType) {
+		return new BoundEnumConverter(targetType);
+	}
+
+	/**
+	 * Converts to the constants of one enum
+	 */
+	private static final class BoundEnumConverter implements ValueConverter<Enum> {
+		private final Class<Enum> enumType;
+
+		BoundEnumConverter(Class<Enum> enumType) {
+			this.enumType = enumType;
+		}
+
+		@Override
+		public boolean accept(Class<Enum> valueClass) {
+			return valueClass == enumType;
+		}
+
+		@Override
+		public Enum convert(Object value) {
+			return Enum.valueOf(enumType, value.toString().trim());
+		}
+	}
+}
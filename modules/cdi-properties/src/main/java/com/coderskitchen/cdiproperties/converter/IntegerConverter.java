@@ -37,6 +37,6 @@ public class IntegerConverter implements ValueConverter<Integer> {
 
 	@Override
 	public Integer convert(Object value) {
-		return Integer.valueOf(value.toString());
+		return (int) NumberParser.parseLong(NumberParser.asCharSequence(value), Integer.MIN_VALUE, Integer.MAX_VALUE);
 	}
 }
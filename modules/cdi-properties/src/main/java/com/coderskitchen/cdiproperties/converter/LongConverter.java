@@ -37,6 +37,6 @@ public class LongConverter implements ValueConverter<Long> {
 
 	@Override
 	public Long convert(Object value) {
-		return Long.valueOf(value.toString());
+		return NumberParser.parseLong(NumberParser.asCharSequence(value), Long.MIN_VALUE, Long.MAX_VALUE);
 	}
 }
@@ -0,0 +1,155 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.converter;
+
+/**
+ * Parses integral numbers directly from a CharSequence.
+ * <p/>
+ * In contrast to {@link Long#valueOf(String)} no intermediate String is created, surrounding whitespace is ignored
+ * and values outside the requested range are reported with the range in the message.
+ */
+public final class NumberParser {
+
+	public static final String MESSAGE_NOT_A_NUMBER = "Value [%s] is not a number";
+	public static final String MESSAGE_OUT_OF_RANGE = "Value [%s] is out of range [%d, %d]";
+
+	/**
+	 * Utility class needs a private constructor
+	 */
+	private NumberParser() {
+	}
+
+	/**
+	 * Returns the value itself if it is a CharSequence, otherwise its String representation
+	 *
+	 * @param value the value to be parsed
+	 * @return the value as CharSequence
+	 */
+	public static CharSequence asCharSequence(Object value) {
+		return value instanceof CharSequence ? (CharSequence) value : value.toString();
+	}
+
+	/**
+	 * Parses the whole value as decimal number
+	 *
+	 * @param value the value to parse
+	 * @param min the smallest accepted number
+	 * @param max the largest accepted number
+	 * @return the parsed number
+	 * @throws NumberFormatException if the value is no number or out of range
+	 */
+	public static long parseLong(CharSequence value, long min, long max) {
+		return parseLong(value, 0, value.length(), min, max);
+	}
+
+	/**
+	 * Parses the characters from start (inclusive) to end (exclusive) as decimal number
+	 *
+	 * @param value the value to parse
+	 * @param start index of the first character
+	 * @param end index after the last character
+	 * @param min the smallest accepted number
+	 * @param max the largest accepted number
+	 * @return the parsed number
+	 * @throws NumberFormatException if the characters are no number or out of range
+	 */
+	public static long parseLong(CharSequence value, int start, int end, long min, long max) {
+		int from = skipWhitespace(value, start, end);
+		int to = trimWhitespace(value, from, end);
+		if (from == to) {
+			throw notANumber(value, start, end);
+		}
+		boolean negative = false;
+		char first = value.charAt(from);
+		if (first == '-' || first == '+') {
+			negative = first == '-';
+			from++;
+			if (from == to) {
+				throw notANumber(value, start, end);
+			}
+		}
+		// accumulating negatively covers Long.MIN_VALUE
+		long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+		long multiplicationLimit = limit / 10;
+		long result = 0;
+		for (int i = from; i < to; i++) {
+			int digit = Character.digit(value.charAt(i), 10);
+			if (digit < 0) {
+				throw notANumber(value, start, end);
+			}
+			if (result < multiplicationLimit) {
+				throw outOfRange(value, start, end, min, max);
+			}
+			result *= 10;
+			if (result < limit + digit) {
+				throw outOfRange(value, start, end, min, max);
+			}
+			result -= digit;
+		}
+		long parsed = negative ? result : -result;
+		if (parsed < min || parsed > max) {
+			throw outOfRange(value, start, end, min, max);
+		}
+		return parsed;
+	}
+
+	/**
+	 * Returns the index of the first non whitespace character between start and end
+	 *
+	 * @param value the characters
+	 * @param start index of the first character
+	 * @param end index after the last character
+	 * @return the index of the first non whitespace character or end
+	 */
+	public static int skipWhitespace(CharSequence value, int start, int end) {
+		int index = start;
+		while (index < end && Character.isWhitespace(value.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	/**
+	 * Returns the index after the last non whitespace character between start and end
+	 *
+	 * @param value the characters
+	 * @param start index of the first character
+	 * @param end index after the last character
+	 * @return the index after the last non whitespace character or start
+	 */
+	public static int trimWhitespace(CharSequence value, int start, int end) {
+		int index = end;
+		while (index > start && Character.isWhitespace(value.charAt(index - 1))) {
+			index--;
+		}
+		return index;
+	}
+
+	private static NumberFormatException notANumber(CharSequence value, int start, int end) {
+		return new NumberFormatException(String.format(MESSAGE_NOT_A_NUMBER, value.subSequence(start, end)));
+	}
+
+	private static NumberFormatException outOfRange(CharSequence value, int start, int end, long min, long max) {
+		return new NumberFormatException(String.format(MESSAGE_OUT_OF_RANGE, value.subSequence(start, end), min, max));
+	}
+}
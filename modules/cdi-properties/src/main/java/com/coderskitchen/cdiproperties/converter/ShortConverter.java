@@ -37,6 +37,6 @@ public class ShortConverter implements ValueConverter<Short> {
 
 	@Override
 	public Short convert(Object value) {
-		return Short.valueOf(value.toString());
+		return (short) NumberParser.parseLong(NumberParser.asCharSequence(value), Short.MIN_VALUE, Short.MAX_VALUE);
 	}
 }
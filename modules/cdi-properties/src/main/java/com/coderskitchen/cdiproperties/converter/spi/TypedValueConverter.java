@@ -0,0 +1,51 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.converter.spi;
+
+/**
+ * Converter that needs the exact target type, e.g. for converting to one of many enum types.
+ * <p/>
+ * For every accepted field type the converter is bound once, the bound converter does the conversions. Typed
+ * converters are registered in META-INF/services/com.coderskitchen.cdiproperties.converter.spi.TypedValueConverter and
+ * are asked after all {@link ValueConverter}s.
+ *
+ * @param <T>
+ * 		generic type that determines to which type a value can be converted
+ */
+public interface TypedValueConverter<T> {
+	/**
+	 * Returns true, if this converter can convert values to the type
+	 *
+	 * @param valueClass the type of the target value
+	 * @return true, if this converter can be bound to the type, false otherwise
+	 */
+	boolean accept(Class<T> valueClass);
+
+	/**
+	 * Returns a converter for the target type
+	 *
+	 * @param targetType the accepted type of the target value
+	 * @return the converter to the target type
+	 */
+	ValueConverter<T> bind(Class<T> targetType);
+}
@@ -0,0 +1,302 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.format;
+
+import com.coderskitchen.cdiproperties.format.spi.PropertyFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+import java.util.Properties;
+
+/**
+ * Reads JSON documents in a single pass without building a document tree.
+ * <p/>
+ * The document must be an object. Nested object keys are joined with dots and array elements get their index in
+ * brackets, so
+ * <pre>
+ *   {"db": {"pool": {"size": 10}, "hosts": ["a", "b"]}}
+ * </pre>
+ * is read as {@code db.pool.size=10}, {@code db.hosts[0]=a} and {@code db.hosts[1]=b}. Numbers keep their textual
+ * representation, null values are skipped.
+ */
+public class JsonFormat implements PropertyFormat {
+
+	public static final String MESSAGE_MALFORMED = "Malformed JSON in line %d: %s";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+	@Override
+	public boolean accept(String format) {
+		return "json".equals(format);
+	}
+
+	@Override
+	public void read(InputStream in, Properties target) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+		reader.mark(1);
+		if (reader.read() != BYTE_ORDER_MARK) {
+			reader.reset();
+		}
+		new Parser(reader, target).parseDocument();
+	}
+
+	/**
+	 * Recursive descent parser appending the current key to a shared path
+	 */
+	private static class Parser {
+		private final Reader reader;
+		private final Properties target;
+		private final StringBuilder path = new StringBuilder();
+		private final StringBuilder text = new StringBuilder();
+		private int peeked = -2;
+		private int line = 1;
+
+		Parser(Reader reader, Properties target) {
+			this.reader = reader;
+			this.target = target;
+		}
+
+		void parseDocument() throws IOException {
+			if (nextToken() != '{') {
+				throw malformed("expected an object");
+			}
+			parseObject();
+			if (nextToken() != -1) {
+				throw malformed("unexpected content after the document");
+			}
+		}
+
+		private void parseValue(int first) throws IOException {
+			switch (first) {
+				case '{':
+					parseObject();
+					break;
+				case '[':
+					parseArray();
+					break;
+				case '"':
+					target.put(path.toString(), parseString());
+					break;
+				default:
+					String literal = parseLiteral(first);
+					if (!"null".equals(literal)) {
+						target.put(path.toString(), literal);
+					}
+			}
+		}
+
+		private void parseObject() throws IOException {
+			int start = path.length();
+			int token = nextToken();
+			if (token == '}') {
+				return;
+			}
+			while (true) {
+				if (token != '"') {
+					throw malformed("expected a key");
+				}
+				if (start > 0) {
+					path.append('.');
+				}
+				path.append(parseString());
+				if (nextToken() != ':') {
+					throw malformed("expected ':' after key " + path);
+				}
+				parseValue(nextToken());
+				path.setLength(start);
+				token = nextToken();
+				if (token == '}') {
+					return;
+				}
+				if (token != ',') {
+					throw malformed("expected ',' or '}'");
+				}
+				token = nextToken();
+			}
+		}
+
+		private void parseArray() throws IOException {
+			int start = path.length();
+			int token = nextToken();
+			if (token == ']') {
+				return;
+			}
+			for (int index = 0; ; index++) {
+				path.append('[').append(index).append(']');
+				parseValue(token);
+				path.setLength(start);
+				token = nextToken();
+				if (token == ']') {
+					return;
+				}
+				if (token != ',') {
+					throw malformed("expected ',' or ']'");
+				}
+				token = nextToken();
+			}
+		}
+
+		private String parseString() throws IOException {
+			text.setLength(0);
+			while (true) {
+				int c = read();
+				switch (c) {
+					case -1:
+					case '\n':
+						throw malformed("unterminated string");
+					case '"':
+						return text.toString();
+					case '\\':
+						text.append(parseEscape());
+						break;
+					default:
+						text.append((char) c);
+				}
+			}
+		}
+
+		private char parseEscape() throws IOException {
+			int c = read();
+			switch (c) {
+				case '"':
+				case '\\':
+				case '/':
+					return (char) c;
+				case 'b':
+					return '\b';
+				case 'f':
+					return '\f';
+				case 'n':
+					return '\n';
+				case 'r':
+					return '\r';
+				case 't':
+					return '\t';
+				case 'u':
+					int value = 0;
+					for (int i = 0; i < 4; i++) {
+						int digit = Character.digit(read(), 16);
+						if (digit < 0) {
+							throw malformed("invalid unicode escape");
+						}
+						value = value * 16 + digit;
+					}
+					return (char) value;
+				default:
+					throw malformed("invalid escape");
+			}
+		}
+
+		private String parseLiteral(int first) throws IOException {
+			text.setLength(0);
+			int c = first;
+			while (c == '-' || c == '+' || c == '.' || Character.isLetterOrDigit(c)) {
+				text.append((char) c);
+				c = read();
+			}
+			peeked = c;
+			String literal = text.toString();
+			if (literal.isEmpty()) {
+				throw malformed("unexpected character " + (first == -1 ? "end of input" : "'" + (char) first + "'"));
+			}
+			if (!"true".equals(literal) && !"false".equals(literal) && !"null".equals(literal) && !isNumber(literal)) {
+				throw malformed("invalid literal " + literal);
+			}
+			return literal;
+		}
+
+		/**
+		 * Checks the JSON number grammar, {@code -?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?}
+		 */
+		private boolean isNumber(String literal) {
+			int i = literal.startsWith("-") ? 1 : 0;
+			if (i < literal.length() && literal.charAt(i) == '0') {
+				i++;
+			} else {
+				int digits = skipDigits(literal, i);
+				if (digits == i) {
+					return false;
+				}
+				i = digits;
+			}
+			if (i < literal.length() && literal.charAt(i) == '.') {
+				int digits = skipDigits(literal, i + 1);
+				if (digits == i + 1) {
+					return false;
+				}
+				i = digits;
+			}
+			if (i < literal.length() && (literal.charAt(i) == 'e' || literal.charAt(i) == 'E')) {
+				i++;
+				if (i < literal.length() && (literal.charAt(i) == '+' || literal.charAt(i) == '-')) {
+					i++;
+				}
+				int digits = skipDigits(literal, i);
+				if (digits == i) {
+					return false;
+				}
+				i = digits;
+			}
+			return i == literal.length();
+		}
+
+		private int skipDigits(String literal, int start) {
+			int i = start;
+			while (i < literal.length() && literal.charAt(i) >= '0' && literal.charAt(i) <= '9') {
+				i++;
+			}
+			return i;
+		}
+
+		private int nextToken() throws IOException {
+			int c = read();
+			while (c == ' ' || c == '\t' || c == '\n' || c == '\r') {
+				c = read();
+			}
+			return c;
+		}
+
+		private int read() throws IOException {
+			int c;
+			if (peeked != -2) {
+				c = peeked;
+				peeked = -2;
+			} else {
+				c = reader.read();
+				if (c == '\n') {
+					line++;
+				}
+			}
+			return c;
+		}
+
+		private IOException malformed(String message) {
+			return new IOException(String.format(MESSAGE_MALFORMED, line, message));
+		}
+	}
+}
@@ -0,0 +1,495 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.format;
+
+import com.coderskitchen.cdiproperties.format.spi.PropertyFormat;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Reads YAML documents line by line without building a document tree.
+ * <p/>
+ * Keys are flattened the same way as by {@link JsonFormat}, nested mapping keys are joined with dots and sequence
+ * items get their index in brackets. Supported is the subset of YAML commonly used for configuration
+ * <ul>
+ * <li>block mappings and block sequences, including sequences of mappings</li>
+ * <li>plain, single quoted and double quoted scalars</li>
+ * <li>literal ({@code |}) and folded ({@code >}) block scalars with chomping indicators</li>
+ * <li>flow sequences of scalars like {@code [a, b]}</li>
+ * <li>comments and a single document, optionally started with {@code ---}</li>
+ * </ul>
+ * Anchors, aliases, tags, flow mappings and multiple documents are rejected. Null values ({@code ~}, {@code null}
+ * or no value) are skipped.
+ */
+public class YamlFormat implements PropertyFormat {
+
+	public static final String MESSAGE_MALFORMED = "Malformed YAML in line %d: %s";
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+	@Override
+	public boolean accept(String format) {
+		return "yaml".equals(format) || "yml".equals(format);
+	}
+
+	@Override
+	public void read(InputStream in, Properties target) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+		reader.mark(1);
+		if (reader.read() != BYTE_ORDER_MARK) {
+			reader.reset();
+		}
+		new Parser(reader, target).parse();
+	}
+
+	/**
+	 * A block mapping or block sequence whose entries start at indent
+	 */
+	private static class Frame {
+		final int indent;
+		final int pathLength;
+		final boolean sequence;
+		int nextIndex;
+
+		Frame(int indent, int pathLength, boolean sequence) {
+			this.indent = indent;
+			this.pathLength = pathLength;
+			this.sequence = sequence;
+		}
+	}
+
+	/**
+	 * A literal or folded block scalar collecting the following, more indented lines
+	 */
+	private static class BlockScalar {
+		final boolean folded;
+		final char chomping;
+		final int parentIndent;
+		final StringBuilder text = new StringBuilder();
+		int indent = -1;
+		int blankLines;
+
+		BlockScalar(boolean folded, char chomping, int parentIndent) {
+			this.folded = folded;
+			this.chomping = chomping;
+			this.parentIndent = parentIndent;
+		}
+	}
+
+	private static class Parser {
+		private final BufferedReader reader;
+		private final Properties target;
+		private final StringBuilder path = new StringBuilder();
+		private final List<Frame> frames = new ArrayList<Frame>();
+		private BlockScalar blockScalar;
+		private boolean pendingContainer = true;
+		private boolean pendingInMapping;
+		private int pendingIndent = -1;
+		private boolean contentSeen;
+		private int line;
+
+		Parser(BufferedReader reader, Properties target) {
+			this.reader = reader;
+			this.target = target;
+		}
+
+		void parse() throws IOException {
+			String text;
+			while ((text = reader.readLine()) != null) {
+				line++;
+				if (blockScalar != null) {
+					if (appendToBlockScalar(text)) {
+						continue;
+					}
+					finishBlockScalar();
+				}
+				int indent = 0;
+				while (indent < text.length() && text.charAt(indent) == ' ') {
+					indent++;
+				}
+				if (indent < text.length() && text.charAt(indent) == '\t') {
+					throw malformed("tabs are not allowed for indentation");
+				}
+				String content = stripComment(text, indent);
+				if (content.isEmpty()) {
+					continue;
+				}
+				if (indent == 0 && (content.equals("---") || content.startsWith("--- "))) {
+					if (contentSeen) {
+						throw malformed("multiple documents are not supported");
+					}
+					continue;
+				}
+				if (indent == 0 && content.equals("...")) {
+					break;
+				}
+				contentSeen = true;
+				parseLine(indent, content);
+			}
+			if (blockScalar != null) {
+				finishBlockScalar();
+			}
+		}
+
+		private void parseLine(int indent, String content) throws IOException {
+			boolean sequenceItem = isSequenceItem(content);
+			if (pendingContainer) {
+				pendingContainer = false;
+				if (indent > pendingIndent || (indent == pendingIndent && pendingInMapping && sequenceItem)) {
+					frames.add(new Frame(indent, path.length(), sequenceItem));
+				}
+			}
+			Frame frame = frames.get(frames.size() - 1);
+			while (frames.size() > 1 && (frame.indent > indent || (frame.indent == indent && frame.sequence && !sequenceItem))) {
+				frames.remove(frames.size() - 1);
+				frame = frames.get(frames.size() - 1);
+			}
+			if (frame.indent != indent) {
+				throw malformed("bad indentation");
+			}
+			if (frame.sequence) {
+				parseSequenceItem(frame, indent, content);
+			} else {
+				parseMappingEntry(frame, indent, content);
+			}
+		}
+
+		private void parseSequenceItem(Frame frame, int indent, String content) throws IOException {
+			if (!isSequenceItem(content)) {
+				throw malformed("expected a sequence item");
+			}
+			path.setLength(frame.pathLength);
+			path.append('[').append(frame.nextIndex++).append(']');
+			int offset = 1;
+			while (offset < content.length() && content.charAt(offset) == ' ') {
+				offset++;
+			}
+			String item = content.substring(offset);
+			if (item.isEmpty()) {
+				openContainer(indent, false);
+			} else if (isSequenceItem(item)) {
+				Frame nested = new Frame(indent + offset, path.length(), true);
+				frames.add(nested);
+				parseSequenceItem(nested, indent + offset, item);
+			} else if (findMappingColon(item) >= 0) {
+				Frame mapping = new Frame(indent + offset, path.length(), false);
+				frames.add(mapping);
+				parseMappingEntry(mapping, indent + offset, item);
+			} else {
+				parseValue(item, indent);
+			}
+		}
+
+		private void parseMappingEntry(Frame frame, int indent, String content) throws IOException {
+			int colon = findMappingColon(content);
+			if (colon < 0) {
+				throw malformed("expected 'key: value'");
+			}
+			String key = content.substring(0, colon).trim();
+			if (key.startsWith("\"") || key.startsWith("'")) {
+				key = parseQuoted(key);
+			}
+			path.setLength(frame.pathLength);
+			if (frame.pathLength > 0) {
+				path.append('.');
+			}
+			path.append(key);
+			String value = content.substring(colon + 1).trim();
+			if (value.isEmpty()) {
+				openContainer(indent, true);
+			} else {
+				parseValue(value, indent);
+			}
+		}
+
+		private void openContainer(int indent, boolean inMapping) {
+			pendingContainer = true;
+			pendingIndent = indent;
+			pendingInMapping = inMapping;
+		}
+
+		private void parseValue(String value, int indent) throws IOException {
+			char first = value.charAt(0);
+			switch (first) {
+				case '|':
+				case '>':
+					startBlockScalar(value, indent);
+					break;
+				case '[':
+					parseFlowSequence(value);
+					break;
+				case '{':
+					if (!value.equals("{}")) {
+						throw malformed("flow mappings are not supported");
+					}
+					break;
+				case '&':
+				case '*':
+				case '!':
+					throw malformed("anchors, aliases and tags are not supported");
+				default:
+					putScalar(path.toString(), value);
+			}
+		}
+
+		private void putScalar(String key, String value) throws IOException {
+			if (value.startsWith("\"") || value.startsWith("'")) {
+				target.put(key, parseQuoted(value));
+			} else if (!value.equals("~") && !value.equals("null")) {
+				target.put(key, value);
+			}
+		}
+
+		private void parseFlowSequence(String value) throws IOException {
+			if (!value.endsWith("]")) {
+				throw malformed("unterminated flow sequence");
+			}
+			String base = path.toString();
+			int index = 0;
+			int itemStart = 1;
+			char quote = 0;
+			for (int i = 1; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (quote != 0) {
+					if (c == '\\' && quote == '"') {
+						i++;
+					} else if (c == quote) {
+						quote = 0;
+					}
+				} else if (c == '"' || c == '\'') {
+					quote = c;
+				} else if (c == '[' || c == '{') {
+					throw malformed("nested flow collections are not supported");
+				} else if (c == ',' || i == value.length() - 1) {
+					String item = value.substring(itemStart, i).trim();
+					if (!item.isEmpty()) {
+						putScalar(base + '[' + index++ + ']', item);
+					} else if (c == ',') {
+						throw malformed("empty flow sequence item");
+					}
+					itemStart = i + 1;
+				}
+			}
+			if (quote != 0) {
+				throw malformed("unterminated quoted scalar");
+			}
+		}
+
+		private void startBlockScalar(String header, int indent) throws IOException {
+			char chomping = 0;
+			if (header.length() == 2 && (header.charAt(1) == '-' || header.charAt(1) == '+')) {
+				chomping = header.charAt(1);
+			} else if (header.length() != 1) {
+				throw malformed("unsupported block scalar header " + header);
+			}
+			blockScalar = new BlockScalar(header.charAt(0) == '>', chomping, indent);
+		}
+
+		/**
+		 * Appends the line to the current block scalar, returns false if the line doesn't belong to it
+		 */
+		private boolean appendToBlockScalar(String text) {
+			BlockScalar block = blockScalar;
+			int indent = 0;
+			while (indent < text.length() && text.charAt(indent) == ' ') {
+				indent++;
+			}
+			if (indent == text.length()) {
+				block.blankLines++;
+				return true;
+			}
+			if (block.indent < 0) {
+				if (indent <= block.parentIndent) {
+					return false;
+				}
+				block.indent = indent;
+			} else if (indent < block.indent) {
+				return false;
+			}
+			int newlines = block.blankLines;
+			if (block.text.length() > 0 && !block.folded) {
+				newlines++;
+			} else if (block.text.length() > 0 && newlines == 0) {
+				block.text.append(' ');
+			}
+			for (int i = 0; i < newlines; i++) {
+				block.text.append('\n');
+			}
+			block.text.append(text, block.indent, text.length());
+			block.blankLines = 0;
+			return true;
+		}
+
+		private void finishBlockScalar() {
+			BlockScalar block = blockScalar;
+			blockScalar = null;
+			if (block.text.length() > 0) {
+				if (block.chomping == '+') {
+					for (int i = 0; i <= block.blankLines; i++) {
+						block.text.append('\n');
+					}
+				} else if (block.chomping != '-') {
+					block.text.append('\n');
+				}
+			}
+			target.put(path.toString(), block.text.toString());
+		}
+
+		private String parseQuoted(String value) throws IOException {
+			char quote = value.charAt(0);
+			StringBuilder text = new StringBuilder(value.length());
+			for (int i = 1; i < value.length(); i++) {
+				char c = value.charAt(i);
+				if (c == quote) {
+					if (quote == '\'' && i + 1 < value.length() && value.charAt(i + 1) == '\'') {
+						text.append('\'');
+						i++;
+					} else if (i == value.length() - 1) {
+						return text.toString();
+					} else {
+						throw malformed("unexpected content after quoted scalar");
+					}
+				} else if (c == '\\' && quote == '"' && i + 1 < value.length()) {
+					i = appendEscape(value, i + 1, text);
+				} else {
+					text.append(c);
+				}
+			}
+			throw malformed("unterminated quoted scalar");
+		}
+
+		private int appendEscape(String value, int index, StringBuilder text) throws IOException {
+			char c = value.charAt(index);
+			switch (c) {
+				case 'n':
+					text.append('\n');
+					return index;
+				case 't':
+					text.append('\t');
+					return index;
+				case 'r':
+					text.append('\r');
+					return index;
+				case '0':
+					text.append('\0');
+					return index;
+				case '"':
+				case '\\':
+				case '/':
+				case ' ':
+					text.append(c);
+					return index;
+				case 'u':
+					if (index + 4 < value.length()) {
+						try {
+							text.append((char) Integer.parseInt(value.substring(index + 1, index + 5), 16));
+							return index + 4;
+						} catch (NumberFormatException e) {
+							throw malformed("invalid unicode escape");
+						}
+					}
+					throw malformed("invalid unicode escape");
+				default:
+					throw malformed("invalid escape \\" + c);
+			}
+		}
+
+		/**
+		 * Finds the colon separating key and value, a colon must be followed by a space or the end of the line
+		 */
+		private int findMappingColon(String content) {
+			int start = 0;
+			if (content.startsWith("\"") || content.startsWith("'")) {
+				char quote = content.charAt(0);
+				start = 1;
+				while (start < content.length() && content.charAt(start) != quote) {
+					start += content.charAt(start) == '\\' && quote == '"' ? 2 : 1;
+				}
+			}
+			for (int i = start; i < content.length(); i++) {
+				if (content.charAt(i) == ':' && (i + 1 == content.length() || content.charAt(i + 1) == ' ')) {
+					return i;
+				}
+			}
+			return -1;
+		}
+
+		/**
+		 * Removes a trailing comment and trailing whitespace. Quotes only start at the beginning of a scalar, so
+		 * apostrophes within plain scalars don't hide comments.
+		 */
+		private String stripComment(String text, int indent) {
+			char quote = 0;
+			char previous = ' ';
+			int end = text.length();
+			for (int i = indent; i < text.length(); i++) {
+				char c = text.charAt(i);
+				if (quote != 0) {
+					if (c == '\\' && quote == '"') {
+						i++;
+					} else if (c == quote) {
+						quote = 0;
+					}
+				} else if ((c == '"' || c == '\'') && isScalarStart(text, i, indent)) {
+					quote = c;
+				} else if (c == '#' && (previous == ' ' || previous == '\t')) {
+					end = i;
+					break;
+				}
+				previous = c;
+			}
+			while (end > indent && Character.isWhitespace(text.charAt(end - 1))) {
+				end--;
+			}
+			return text.substring(indent, end);
+		}
+
+		private boolean isScalarStart(String text, int index, int indent) {
+			int i = index - 1;
+			while (i >= indent && text.charAt(i) == ' ') {
+				i--;
+			}
+			if (i < indent) {
+				return true;
+			}
+			char c = text.charAt(i);
+			return c == ':' || c == '-' || c == '[' || c == ',';
+		}
+
+		private boolean isSequenceItem(String content) {
+			return content.equals("-") || content.startsWith("- ");
+		}
+
+		private IOException malformed(String message) {
+			return new IOException(String.format(MESSAGE_MALFORMED, line, message));
+		}
+	}
+}
@@ -0,0 +1,52 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.format.spi;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Reads a file format into flat key value pairs.
+ * <p/>
+ * Hierarchical formats flatten nested keys into dotted keys, so {@literal @}Property lookups work the same way as
+ * for properties files.
+ */
+public interface PropertyFormat {
+	/**
+	 * Returns true, if this format can read files of the given format
+	 *
+	 * @param format the lower case file extension or the format named in {@literal @}PropertyFile
+	 * @return true, if this format reads the requested format, false otherwise
+	 */
+	boolean accept(String format);
+
+	/**
+	 * Reads all key value pairs from the stream into target
+	 *
+	 * @param in the stream to read, closed by the caller
+	 * @param target the properties to add the read key value pairs to
+	 * @throws IOException if the stream couldn't be read or is malformed
+	 */
+	void read(InputStream in, Properties target) throws IOException;
+}
@@ -0,0 +1,154 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.unit;
+
+import com.coderskitchen.cdiproperties.converter.NumberParser;
+
+/**
+ * An immutable, non negative amount of bytes.
+ * <p/>
+ * Data sizes are parsed from values like {@code 512B}, {@code 64MiB} or {@code 10 KB}. Plain numbers are taken as
+ * bytes. Supported are the decimal units {@code KB}, {@code MB}, {@code GB}, {@code TB} and the binary units
+ * {@code KiB}, {@code MiB}, {@code GiB}, {@code TiB}, all ignoring case.
+ */
+public final class DataSize {
+
+	public static final String MESSAGE_UNKNOWN_UNIT = "Unknown data size unit [%s] in [%s], expected one of B, KB, MB, GB, TB, KiB, MiB, GiB, TiB";
+
+	private static final long KIB = 1024L;
+	private static final long MIB = KIB * 1024L;
+	private static final long GIB = MIB * 1024L;
+	private static final long TIB = GIB * 1024L;
+
+	private final long bytes;
+
+	private DataSize(long bytes) {
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Creates a data size of the given bytes
+	 *
+	 * @param bytes the non negative number of bytes
+	 * @return the data size
+	 */
+	public static DataSize ofBytes(long bytes) {
+		if (bytes < 0) {
+			throw new IllegalArgumentException("Data size must not be negative: " + bytes);
+		}
+		return new DataSize(bytes);
+	}
+
+	/**
+	 * Parses a data size
+	 *
+	 * @param value the value to parse, e.g. 64MiB
+	 * @return the parsed data size
+	 * @throws IllegalArgumentException if the value is no data size or exceeds {@link Long#MAX_VALUE} bytes
+	 */
+	public static DataSize parse(CharSequence value) {
+		int end = NumberParser.trimWhitespace(value, 0, value.length());
+		int unitStart = end;
+		while (unitStart > 0 && Character.isLetter(value.charAt(unitStart - 1))) {
+			unitStart--;
+		}
+		long multiplier = unitStart == end ? 1 : multiplierOf(value, unitStart, end);
+		return new DataSize(NumberParser.parseLong(value, 0, unitStart, 0, Long.MAX_VALUE / multiplier) * multiplier);
+	}
+
+	private static long multiplierOf(CharSequence value, int start, int end) {
+		if (Units.matches(value, start, end, "B")) {
+			return 1;
+		} else if (Units.matches(value, start, end, "KiB")) {
+			return KIB;
+		} else if (Units.matches(value, start, end, "MiB")) {
+			return MIB;
+		} else if (Units.matches(value, start, end, "GiB")) {
+			return GIB;
+		} else if (Units.matches(value, start, end, "TiB")) {
+			return TIB;
+		} else if (Units.matches(value, start, end, "KB")) {
+			return 1000L;
+		} else if (Units.matches(value, start, end, "MB")) {
+			return 1000L * 1000L;
+		} else if (Units.matches(value, start, end, "GB")) {
+			return 1000L * 1000L * 1000L;
+		} else if (Units.matches(value, start, end, "TB")) {
+			return 1000L * 1000L * 1000L * 1000L;
+		}
+		throw new IllegalArgumentException(String.format(MESSAGE_UNKNOWN_UNIT, value.subSequence(start, end), value));
+	}
+
+	public long toBytes() {
+		return bytes;
+	}
+
+	public long toKibibytes() {
+		return bytes / KIB;
+	}
+
+	public long toMebibytes() {
+		return bytes / MIB;
+	}
+
+	public long toGibibytes() {
+		return bytes / GIB;
+	}
+
+	/**
+	 * Returns the number of bytes as int, e.g. for buffer sizes
+	 *
+	 * @return the number of bytes
+	 * @throws ArithmeticException if the size exceeds {@link Integer#MAX_VALUE}
+	 */
+	public int toIntBytes() {
+		if (bytes > Integer.MAX_VALUE) {
+			throw new ArithmeticException("Data size " + this + " exceeds " + Integer.MAX_VALUE + " bytes");
+		}
+		return (int) bytes;
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		return this == o || o instanceof DataSize && ((DataSize) o).bytes == bytes;
+	}
+
+	@Override
+	public int hashCode() {
+		return (int) (bytes ^ (bytes >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		if (bytes != 0 && bytes % TIB == 0) {
+			return bytes / TIB + "TiB";
+		} else if (bytes != 0 && bytes % GIB == 0) {
+			return bytes / GIB + "GiB";
+		} else if (bytes != 0 && bytes % MIB == 0) {
+			return bytes / MIB + "MiB";
+		} else if (bytes != 0 && bytes % KIB == 0) {
+			return bytes / KIB + "KiB";
+		}
+		return bytes + "B";
+	}
+}
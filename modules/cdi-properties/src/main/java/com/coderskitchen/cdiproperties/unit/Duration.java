@@ -0,0 +1,154 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.unit;
+
+import com.coderskitchen.cdiproperties.converter.NumberParser;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An immutable, non negative amount of time in a {@link TimeUnit}.
+ * <p/>
+ * Durations are parsed from values like {@code 250ms}, {@code 30 s} or {@code 5m}. Plain numbers are taken as
+ * milliseconds. Supported units are {@code ns}, {@code us}, {@code ms}, {@code s}, {@code m} or {@code min},
+ * {@code h} and {@code d}.
+ */
+public final class Duration {
+
+	public static final String MESSAGE_UNKNOWN_UNIT = "Unknown time unit [%s] in [%s], expected one of ns, us, ms, s, m, min, h, d";
+
+	private final long amount;
+	private final TimeUnit unit;
+
+	private Duration(long amount, TimeUnit unit) {
+		this.amount = amount;
+		this.unit = unit;
+	}
+
+	/**
+	 * Creates a duration of amount units
+	 *
+	 * @param amount the non negative amount
+	 * @param unit the unit of amount
+	 * @return the duration
+	 */
+	public static Duration of(long amount, TimeUnit unit) {
+		if (amount < 0) {
+			throw new IllegalArgumentException("Duration must not be negative: " + amount);
+		}
+		if (unit == null) {
+			throw new IllegalArgumentException("Unit must not be null");
+		}
+		return new Duration(amount, unit);
+	}
+
+	/**
+	 * Parses a duration
+	 *
+	 * @param value the value to parse, e.g. 250ms
+	 * @return the parsed duration
+	 * @throws IllegalArgumentException if the value is no duration
+	 */
+	public static Duration parse(CharSequence value) {
+		int end = NumberParser.trimWhitespace(value, 0, value.length());
+		int unitStart = end;
+		while (unitStart > 0 && Character.isLetter(value.charAt(unitStart - 1))) {
+			unitStart--;
+		}
+		TimeUnit unit = unitStart == end ? TimeUnit.MILLISECONDS : unitOf(value, unitStart, end);
+		return new Duration(NumberParser.parseLong(value, 0, unitStart, 0, Long.MAX_VALUE), unit);
+	}
+
+	private static TimeUnit unitOf(CharSequence value, int start, int end) {
+		if (Units.matches(value, start, end, "ms")) {
+			return TimeUnit.MILLISECONDS;
+		} else if (Units.matches(value, start, end, "s")) {
+			return TimeUnit.SECONDS;
+		} else if (Units.matches(value, start, end, "m") || Units.matches(value, start, end, "min")) {
+			return TimeUnit.MINUTES;
+		} else if (Units.matches(value, start, end, "h")) {
+			return TimeUnit.HOURS;
+		} else if (Units.matches(value, start, end, "d")) {
+			return TimeUnit.DAYS;
+		} else if (Units.matches(value, start, end, "us") || Units.matches(value, start, end, "\u00b5s")) {
+			return TimeUnit.MICROSECONDS;
+		} else if (Units.matches(value, start, end, "ns")) {
+			return TimeUnit.NANOSECONDS;
+		}
+		throw new IllegalArgumentException(String.format(MESSAGE_UNKNOWN_UNIT, value.subSequence(start, end), value));
+	}
+
+	public long getAmount() {
+		return amount;
+	}
+
+	public TimeUnit getUnit() {
+		return unit;
+	}
+
+	/**
+	 * Converts this duration to the given unit, saturating like {@link TimeUnit#convert(long, TimeUnit)}
+	 *
+	 * @param target the target unit
+	 * @return the amount in the target unit
+	 */
+	public long to(TimeUnit target) {
+		return target.convert(amount, unit);
+	}
+
+	public long toNanos() {
+		return unit.toNanos(amount);
+	}
+
+	public long toMillis() {
+		return unit.toMillis(amount);
+	}
+
+	public long toSeconds() {
+		return unit.toSeconds(amount);
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) {
+			return true;
+		}
+		if (!(o instanceof Duration)) {
+			return false;
+		}
+		Duration other = (Duration) o;
+		TimeUnit finer = unit.compareTo(other.unit) < 0 ? unit : other.unit;
+		return to(finer) == other.to(finer);
+	}
+
+	@Override
+	public int hashCode() {
+		long nanos = toNanos();
+		return (int) (nanos ^ (nanos >>> 32));
+	}
+
+	@Override
+	public String toString() {
+		return amount + Units.suffixOf(unit);
+	}
+}
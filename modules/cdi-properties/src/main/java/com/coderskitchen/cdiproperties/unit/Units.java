@@ -0,0 +1,73 @@
+/**
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2014 Peter Daum
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of
+ * this software and associated documentation files (the "Software"), to deal in
+ * the Software without restriction, including without limitation the rights to
+ * use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of
+ * the Software, and to permit persons to whom the Software is furnished to do so,
+ * subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS
+ * FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR
+ * COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER
+ * IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN
+ * CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.coderskitchen.cdiproperties.unit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Helper for matching unit suffixes without creating substrings
+ */
+final class Units {
+
+	/**
+	 * Utility class needs a private constructor
+	 */
+	private Units() {
+	}
+
+	/**
+	 * Compares the characters from start to end with the unit, ignoring case
+	 */
+	static boolean matches(CharSequence value, int start, int end, String unit) {
+		if (end - start != unit.length()) {
+			return false;
+		}
+		for (int i = 0; i < unit.length(); i++) {
+			char c = value.charAt(start + i);
+			char u = unit.charAt(i);
+			if (c != u && Character.toLowerCase(c) != Character.toLowerCase(u)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	static String suffixOf(TimeUnit unit) {
+		switch (unit) {
+			case NANOSECONDS:
+				return "ns";
+			case MICROSECONDS:
+				return "us";
+			case MILLISECONDS:
+				return "ms";
+			case SECONDS:
+				return "s";
+			case MINUTES:
+				return "m";
+			case HOURS:
+				return "h";
+			default:
+				return "d";
+		}
+	}
+}
@@ -0,0 +1,261 @@
+package com.coderskitchen.cdiproperties;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.notNullValue;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.enterprise.inject.InjectionException;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
+import javax.enterprise.inject.spi.AnnotatedField;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.InjectionTarget;
+import javax.enterprise.inject.spi.ProcessInjectionTarget;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+
+public class CDIPropertiesExtensionTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private final List<Throwable> problems = new ArrayList<Throwable>();
+	private InjectionTarget<?> injectionTarget;
+
+	@Test
+	public void eagerLoadingInjectsValues() throws Exception {
+		write("extension-test.properties", "name=eager");
+		CDIPropertiesExtension extension = extension(false, false);
+
+		extension.initializePropertyLoading(processInjectionTarget(Bean.class));
+
+		assertThat(problems.isEmpty(), is(true));
+		assertThat(inject().name, equalTo("eager"));
+	}
+
+	@Test
+	public void eagerLoadingReportsMissingFileAsDefinitionError() throws Exception {
+		CDIPropertiesExtension extension = extension(false, false);
+
+		extension.initializePropertyLoading(processInjectionTarget(Bean.class));
+
+		assertThat(problems.size(), is(1));
+		assertThat(problems.get(0).getMessage(), containsString("extension-test.properties"));
+		assertThat(injectionTarget, nullValue());
+	}
+
+	@Test
+	public void eagerLoadingReportsMissingKeyAsDefinitionError() throws Exception {
+		write("extension-test.properties", "other=value");
+		CDIPropertiesExtension extension = extension(false, false);
+
+		extension.initializePropertyLoading(processInjectionTarget(Bean.class));
+
+		assertThat(problems.size(), is(1));
+		assertThat(problems.get(0), instanceOf(InjectionException.class));
+	}
+
+	@Test
+	public void lazyLoadingDefersLoadingToFirstInjection() throws Exception {
+		CDIPropertiesExtension extension = extension(true, false);
+
+		extension.initializePropertyLoading(processInjectionTarget(Bean.class));
+		extension.validateLazyLoading(afterDeploymentValidation());
+		write("extension-test.properties", "name=lazy");
+
+		assertThat(problems.isEmpty(), is(true));
+		assertThat(inject().name, equalTo("lazy"));
+	}
+
+	@Test
+	public void lazyLoadingThrowsErrorsOnInjection() throws Exception {
+		CDIPropertiesExtension extension = extension(true, false);
+		extension.initializePropertyLoading(processInjectionTarget(Bean.class));
+
+		try {
+			inject();
+			fail("InjectionException expected");
+		} catch (InjectionException e) {
+			assertThat(e.getMessage(), containsString("extension-test.properties"));
+		}
+	}
+
+	@Test
+	public void validatedLazyLoadingReportsDeploymentProblems() throws Exception {
+		CDIPropertiesExtension extension = extension(true, true);
+
+		extension.initializePropertyLoading(processInjectionTarget(Bean.class));
+		assertThat(problems.isEmpty(), is(true));
+		extension.validateLazyLoading(afterDeploymentValidation());
+
+		assertThat(problems.size(), is(1));
+		assertThat(problems.get(0), instanceOf(InjectionException.class));
+	}
+
+	@Test
+	public void validatedLazyLoadingKeepsLoadedValues() throws Exception {
+		write("extension-test.properties", "name=validated");
+		CDIPropertiesExtension extension = extension(true, true);
+
+		extension.initializePropertyLoading(processInjectionTarget(Bean.class));
+		extension.validateLazyLoading(afterDeploymentValidation());
+		write("extension-test.properties", "name=changed");
+
+		assertThat(problems.isEmpty(), is(true));
+		assertThat(inject().name, equalTo("validated"));
+	}
+
+	private CDIPropertiesExtension extension(boolean lazyLoading, boolean validateLazyLoading) {
+		Properties configuration = new Properties();
+		configuration.setProperty(CDIPropertiesExtension.PROPERTY_BASE_FOLDER, temporaryFolder.getRoot().getPath());
+		configuration.setProperty(CDIPropertiesExtension.PROPERTY_LAZY_LOADING, String.valueOf(lazyLoading));
+		configuration.setProperty(CDIPropertiesExtension.PROPERTY_VALIDATE_LAZY_LOADING, String.valueOf(validateLazyLoading));
+		return new CDIPropertiesExtension(configuration);
+	}
+
+	private void write(String file, String content) throws Exception {
+		Files.write(temporaryFolder.getRoot().toPath().resolve(file), content.getBytes(Charset.forName("UTF-8")));
+	}
+
+	@SuppressWarnings("unchecked")
+	private Bean inject() {
+		assertThat(injectionTarget, notNullValue());
+		Bean bean = new Bean();
+		((InjectionTarget<Bean>) injectionTarget).inject(bean, null);
+		return bean;
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T> ProcessInjectionTarget<T> processInjectionTarget(final Class<T> type) {
+		final AnnotatedType<T> annotatedType = annotatedType(type);
+		final InjectionTarget<T> noOp = stub(InjectionTarget.class, new Handler());
+		return stub(ProcessInjectionTarget.class, new Handler() {
+			@Override
+			Object handle(String method, Object[] args) {
+				if ("getAnnotatedType".equals(method)) {
+					return annotatedType;
+				} else if ("getInjectionTarget".equals(method)) {
+					return noOp;
+				} else if ("setInjectionTarget".equals(method)) {
+					injectionTarget = (InjectionTarget<?>) args[0];
+					return null;
+				} else if ("addDefinitionError".equals(method)) {
+					problems.add((Throwable) args[0]);
+					return null;
+				}
+				return super.handle(method, args);
+			}
+		});
+	}
+
+	private AfterDeploymentValidation afterDeploymentValidation() {
+		return stub(AfterDeploymentValidation.class, new Handler() {
+			@Override
+			Object handle(String method, Object[] args) {
+				if ("addDeploymentProblem".equals(method)) {
+					problems.add((Throwable) args[0]);
+					return null;
+				}
+				return super.handle(method, args);
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> AnnotatedType<T> annotatedType(final Class<T> type) {
+		final Set<AnnotatedField<? super T>> fields = new HashSet<AnnotatedField<? super T>>();
+		for (Field field : type.getDeclaredFields()) {
+			fields.add(annotatedField(field));
+		}
+		return stub(AnnotatedType.class, new AnnotatedHandler(type) {
+			@Override
+			Object handle(String method, Object[] args) {
+				if ("getJavaClass".equals(method)) {
+					return type;
+				} else if ("getFields".equals(method)) {
+					return fields;
+				}
+				return super.handle(method, args);
+			}
+		});
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <T> AnnotatedField<T> annotatedField(final Field field) {
+		return stub(AnnotatedField.class, new AnnotatedHandler(field) {
+			@Override
+			Object handle(String method, Object[] args) {
+				if ("getJavaMember".equals(method)) {
+					return field;
+				}
+				return super.handle(method, args);
+			}
+		});
+	}
+
+	private static <T> T stub(Class<T> type, InvocationHandler handler) {
+		return type.cast(Proxy.newProxyInstance(CDIPropertiesExtensionTest.class.getClassLoader(), new Class<?>[]{type}, handler));
+	}
+
+	private static class Handler implements InvocationHandler {
+		@Override
+		public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+			if ("hashCode".equals(method.getName())) {
+				return System.identityHashCode(proxy);
+			} else if ("equals".equals(method.getName())) {
+				return proxy == args[0];
+			}
+			return handle(method.getName(), args);
+		}
+
+		Object handle(String method, Object[] args) {
+			if ("inject".equals(method) || "postConstruct".equals(method) || "preDestroy".equals(method)) {
+				return null;
+			}
+			throw new UnsupportedOperationException(method);
+		}
+	}
+
+	private static class AnnotatedHandler extends Handler {
+		private final AnnotatedElement element;
+
+		AnnotatedHandler(AnnotatedElement element) {
+			this.element = element;
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		Object handle(String method, Object[] args) {
+			if ("isAnnotationPresent".equals(method)) {
+				return element.isAnnotationPresent((Class<? extends Annotation>) args[0]);
+			} else if ("getAnnotation".equals(method)) {
+				return element.getAnnotation((Class<? extends Annotation>) args[0]);
+			}
+			return super.handle(method, args);
+		}
+	}
+
+	@PropertyFile("extension-test.properties")
+	static class Bean {
+		@Property("name")
+		private String name;
+	}
+}
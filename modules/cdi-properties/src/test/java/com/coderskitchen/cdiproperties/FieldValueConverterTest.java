@@ -0,0 +1,230 @@
+package com.coderskitchen.cdiproperties;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+import javax.enterprise.inject.InjectionException;
+import java.lang.reflect.Field;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+public class FieldValueConverterTest {
+
+	private final FieldValueConverter converter = new FieldValueConverter(new ValueConverterFactory(), null, "test.properties", null);
+
+	@Test
+	public void valuesAreConvertedToFieldTypes() throws Exception {
+		Map<Field, Object> converted = converter.convert("Bean", values("name", "demo", "count", "12"));
+
+		assertThat(converted.get(field("name")), equalTo((Object) "demo"));
+		assertThat(converted.get(field("count")), equalTo((Object) 12));
+		for (Field field : converted.keySet()) {
+			assertThat(field.isAccessible(), is(true));
+		}
+		assertThat(converter.getProblems().isEmpty(), is(true));
+	}
+
+	@Test
+	public void missingValueIsAProblem() throws Exception {
+		Map<Field, Object> converted = converter.convert("Bean", values("name", null));
+
+		assertThat(converted.isEmpty(), is(true));
+		assertProblem(String.format(PropertyInjectionTarget.MESSAGE_NO_VALUE_FOUND, "name", String.class, "Bean"));
+	}
+
+	@Test
+	public void missingConverterIsAProblem() throws Exception {
+		Map<Field, Object> converted = converter.convert("Bean", values("list", "a,b"));
+
+		assertThat(converted.isEmpty(), is(true));
+		assertProblem(String.format(PropertyInjectionTarget.MESSAGE_NO_CONVERTER_FOUND, "list", List.class, "Bean"));
+	}
+
+	@Test
+	public void failedConversionIsAProblem() throws Exception {
+		Map<Field, Object> converted = converter.convert("Bean", values("count", "twelve"));
+
+		assertThat(converted.isEmpty(), is(true));
+		assertThat(converter.getProblems().size(), is(1));
+		assertThat(converter.getProblems().get(0).getMessage(), containsString("For field count of type int in class Bean the value couldn't be converted"));
+	}
+
+	@Test
+	public void allProblemsAreCollected() throws Exception {
+		Map<Field, Object> converted = converter.convert("Bean", values("name", "demo", "count", "twelve", "list", "a"));
+
+		assertThat(converted.size(), is(1));
+		assertThat(converter.getProblems().size(), is(2));
+	}
+
+	@Test
+	public void mapFieldReceivesTheSharedView() throws Exception {
+		PropertyIndex index = index("db.pool.size", "12", "db.pool.timeout", "250ms", "db.url", "jdbc:h2:mem");
+
+		Map<Field, Object> converted = converter.convert("Config", prefixValues(index, "poolMap", "db.pool"));
+
+		Object view = converted.get(configField("poolMap"));
+		assertThat(view, sameInstance((Object) index.withPrefix("db.pool")));
+		assertThat(((Map<?, ?>) view).size(), is(2));
+		assertThat(((Map<?, ?>) view).get("size"), equalTo((Object) "12"));
+	}
+
+	@Test
+	public void subConfigFieldsAreConvertedIncludingNestedPrefixes() throws Exception {
+		PropertyIndex index = index("db.pool.size", "12", "db.pool.limits.max", "40", "db.url", "jdbc:h2:mem");
+
+		Map<Field, Object> converted = converter.convert("Config", prefixValues(index, "pool", "db.pool"));
+
+		assertThat(converter.getProblems().isEmpty(), is(true));
+		Pool pool = (Pool) FieldValueConverter.SubConfig.instantiate(converted.get(configField("pool")));
+		assertThat(pool.size, is(12));
+		assertThat(pool.limits.max, is(40L));
+	}
+
+	@Test
+	public void emptyPrefixIsAProblem() throws Exception {
+		PropertyIndex index = index("db.url", "jdbc:h2:mem");
+
+		Map<Field, Object> converted = converter.convert("Config", prefixValues(index, "pool", "db.pool"));
+
+		assertThat(converted.isEmpty(), is(true));
+		assertProblem(String.format(PropertyInjectionTarget.MESSAGE_NO_VALUE_FOUND, "pool", Pool.class, "Config"));
+	}
+
+	@Test
+	public void subConfigWithoutNoArgConstructorIsAProblem() throws Exception {
+		PropertyIndex index = index("db.pool.size", "12");
+
+		Map<Field, Object> converted = converter.convert("Config", prefixValues(index, "noDefaultConstructor", "db.pool"));
+
+		assertThat(converted.isEmpty(), is(true));
+		assertProblem(String.format(PropertyInjectionTarget.MESSAGE_NO_SUB_CONFIG_CONSTRUCTOR, NoDefaultConstructor.class.getName()));
+	}
+
+	@Test
+	public void mapWithOtherThanStringValuesIsAProblem() throws Exception {
+		PropertyIndex index = index("db.pool.size", "12");
+
+		Map<Field, Object> converted = converter.convert("Config", prefixValues(index, "integerMap", "db.pool"));
+
+		assertThat(converted.isEmpty(), is(true));
+		assertProblem(String.format(PropertyInjectionTarget.MESSAGE_PREFIX_MAP_TYPE, "integerMap", configField("integerMap").getGenericType(), "Config"));
+	}
+
+	@Test
+	public void mapImplementationIsAProblem() throws Exception {
+		PropertyIndex index = index("db.pool.size", "12");
+
+		Map<Field, Object> converted = converter.convert("Config", prefixValues(index, "hashMap", "db.pool"));
+
+		assertThat(converted.isEmpty(), is(true));
+		assertProblem(String.format(PropertyInjectionTarget.MESSAGE_PREFIX_MAP_TYPE, "hashMap", configField("hashMap").getGenericType(), "Config"));
+	}
+
+	@Test
+	public void subConfigWithoutPropertyFieldsIsAProblem() throws Exception {
+		PropertyIndex index = index("db.pool.size", "12");
+
+		Map<Field, Object> converted = converter.convert("Config", prefixValues(index, "text", "db.pool"));
+
+		assertThat(converted.isEmpty(), is(true));
+		assertProblem(String.format(PropertyInjectionTarget.MESSAGE_NO_SUB_CONFIG_PROPERTIES, String.class.getName()));
+	}
+
+	@Test
+	public void problemsOfSubConfigFieldsAreCollected() throws Exception {
+		PropertyIndex index = index("db.pool.size", "twelve");
+
+		Map<Field, Object> converted = converter.convert("Config", prefixValues(index, "pool", "db.pool"));
+
+		assertThat(converter.getProblems().size(), is(2));
+		assertThat(converter.getProblems().get(0).getMessage(), containsString("class " + Pool.class.getName()));
+		assertThat(converted.size(), is(1));
+	}
+
+	private void assertProblem(String message) {
+		assertThat(converter.getProblems().size(), is(1));
+		assertThat(converter.getProblems().get(0), instanceOf(InjectionException.class));
+		assertThat(converter.getProblems().get(0).getMessage(), equalTo(message));
+	}
+
+	private static Map<Field, Object> values(String... fieldsAndValues) throws NoSuchFieldException {
+		Map<Field, Object> values = new HashMap<Field, Object>();
+		for (int i = 0; i < fieldsAndValues.length; i += 2) {
+			values.put(field(fieldsAndValues[i]), fieldsAndValues[i + 1]);
+		}
+		return values;
+	}
+
+	private static PropertyIndex index(String... keysAndValues) {
+		Properties properties = new Properties();
+		for (int i = 0; i < keysAndValues.length; i += 2) {
+			properties.setProperty(keysAndValues[i], keysAndValues[i + 1]);
+		}
+		return new PropertyIndex(properties);
+	}
+
+	private static Map<Field, Object> prefixValues(PropertyIndex index, String fieldName, String prefix) throws NoSuchFieldException {
+		return Collections.<Field, Object>singletonMap(configField(fieldName), index.withPrefix(prefix));
+	}
+
+	private static Field configField(String name) throws NoSuchFieldException {
+		return Config.class.getDeclaredField(name);
+	}
+
+	private static Field field(String name) throws NoSuchFieldException {
+		return Bean.class.getDeclaredField(name);
+	}
+
+	static class Bean {
+		@Property("name")
+		private String name;
+		@Property("count")
+		private int count;
+		@Property("list")
+		private List<String> list;
+	}
+
+	static class Config {
+		@PropertyPrefix("db.pool")
+		private Map<String, String> poolMap;
+		@PropertyPrefix("db.pool")
+		private Pool pool;
+		@PropertyPrefix("db.pool")
+		private NoDefaultConstructor noDefaultConstructor;
+		@PropertyPrefix("db.pool")
+		private Map<String, Integer> integerMap;
+		@PropertyPrefix("db.pool")
+		private HashMap<String, String> hashMap;
+		@PropertyPrefix("db.pool")
+		private String text;
+	}
+
+	static class Pool {
+		@Property("size")
+		private int size;
+		@PropertyPrefix("limits")
+		private Limits limits;
+	}
+
+	static class Limits {
+		@Property("max")
+		private long max;
+	}
+
+	static class NoDefaultConstructor {
+		@Property("size")
+		private int size;
+
+		NoDefaultConstructor(int size) {
+		}
+	}
+}
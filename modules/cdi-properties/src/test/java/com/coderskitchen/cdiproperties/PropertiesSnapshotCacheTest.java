@@ -0,0 +1,139 @@
+package com.coderskitchen.cdiproperties;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import com.coderskitchen.cdiproperties.audit.SourceLayer;
+import com.coderskitchen.cdiproperties.format.PropertiesFormat;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+public class PropertiesSnapshotCacheTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	private Path propertiesFile;
+	private Path snapshotFolder;
+	private PropertiesSnapshotCache cache;
+
+	@Before
+	public void setUp() throws Exception {
+		propertiesFile = temporaryFolder.newFile("application.properties").toPath();
+		snapshotFolder = temporaryFolder.newFolder("snapshots").toPath();
+		cache = new PropertiesSnapshotCache(snapshotFolder, new StringPool.Statistics());
+	}
+
+	@Test
+	public void snapshotOfUnchangedFileIsReused() throws Exception {
+		write("name=first");
+		cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+		File snapshot = snapshotFolder.toFile().listFiles()[0];
+		FileTime written = FileTime.fromMillis(1000);
+		Files.setLastModifiedTime(snapshot.toPath(), written);
+
+		PropertyIndex properties = cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+
+		assertThat(properties.get("name"), equalTo("first"));
+		assertThat(Files.getLastModifiedTime(snapshot.toPath()), equalTo(written));
+	}
+
+	@Test
+	public void changedFileIsParsedAgain() throws Exception {
+		write("name=first");
+		cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+		write("name=changed");
+
+		PropertyIndex properties = cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+
+		assertThat(properties.get("name"), equalTo("changed"));
+	}
+
+	@Test
+	public void corruptSnapshotIsReplaced() throws Exception {
+		write("name=first");
+		cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+		File snapshot = snapshotFolder.toFile().listFiles()[0];
+		Files.write(snapshot.toPath(), new byte[]{1, 2, 3});
+
+		PropertyIndex properties = cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+
+		assertThat(properties.get("name"), equalTo("first"));
+		assertThat(snapshotFolder.toFile().listFiles().length, is(1));
+		assertThat(snapshot.length() > 3, is(true));
+	}
+
+	@Test
+	public void snapshotWithNegativeSourceLengthIsReplaced() throws Exception {
+		assertCorruptHeaderIsReplaced(-5);
+	}
+
+	@Test
+	public void snapshotWithOversizedSourceLengthIsReplaced() throws Exception {
+		assertCorruptHeaderIsReplaced(Integer.MAX_VALUE - 8);
+	}
+
+	private void assertCorruptHeaderIsReplaced(int sourceLength) throws Exception {
+		write("name=first");
+		cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+		File snapshot = snapshotFolder.toFile().listFiles()[0];
+		Files.write(snapshot.toPath(), ByteBuffer.allocate(16).putInt(2).putInt(sourceLength).array());
+
+		PropertyIndex properties = cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+
+		assertThat(properties.get("name"), equalTo("first"));
+		assertThat(snapshot.length() > 16, is(true));
+	}
+
+	@Test
+	public void unchangedSizeAndModificationTimeSkipReadingTheFile() throws Exception {
+		write("name=first");
+		FileTime modified = Files.getLastModifiedTime(propertiesFile);
+		cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+		write("name=other");
+		Files.setLastModifiedTime(propertiesFile, modified);
+
+		PropertyIndex properties = cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+
+		assertThat(properties.get("name"), equalTo("first"));
+	}
+
+	@Test
+	public void touchedFileWithSameContentReusesSnapshot() throws Exception {
+		write("name=first");
+		cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+		Files.setLastModifiedTime(propertiesFile, FileTime.fromMillis(Files.getLastModifiedTime(propertiesFile).toMillis() + 2000));
+
+		PropertyIndex properties = cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+
+		assertThat(properties.get("name"), equalTo("first"));
+		assertThat(snapshotFolder.toFile().listFiles().length, is(1));
+	}
+
+	@Test
+	public void entriesAreRestoredSortedWithAllCharacters() throws Exception {
+		write("b=\\u20ac 5\nc=\\u00e4\na=plain");
+		cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+
+		PropertyIndex properties = cache.load(propertiesFile.toUri().toURL(), new PropertiesFormat(), SourceLayer.FILE_SYSTEM);
+
+		assertThat(properties.size(), is(3));
+		assertThat(properties.keyAt(0), equalTo("a"));
+		assertThat(properties.get("b"), equalTo("\u20ac 5"));
+		assertThat(properties.get("c"), equalTo("\u00e4"));
+		assertThat(properties.getLocation(), equalTo(propertiesFile.toUri().toURL().toString()));
+	}
+
+	private void write(String content) throws Exception {
+		Files.write(propertiesFile, content.getBytes(Charset.forName("UTF-8")));
+	}
+}
@@ -0,0 +1,63 @@
+package com.coderskitchen.cdiproperties;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+
+public class PropertyIndexRegistryTest {
+
+	@Rule
+	public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+	@Test
+	public void indexOfSameVersionIsShared() throws Exception {
+		URL location = writeFile("name=first").toUri().toURL();
+		String version = PropertyIndexRegistry.versionOf(location);
+		String source = location + "#shared";
+		PropertyIndex index = new PropertyIndex(new Properties());
+
+		assertThat(PropertyIndexRegistry.get(source, version), nullValue());
+		assertThat(PropertyIndexRegistry.register(source, version, index), sameInstance(index));
+		assertThat(PropertyIndexRegistry.get(source, version), sameInstance(index));
+		assertThat(PropertyIndexRegistry.register(source, version, new PropertyIndex(new Properties())), sameInstance(index));
+	}
+
+	@Test
+	public void changedFileIsNotShared() throws Exception {
+		Path file = writeFile("name=first");
+		URL location = file.toUri().toURL();
+		String version = PropertyIndexRegistry.versionOf(location);
+		String source = location + "#changed";
+		PropertyIndexRegistry.register(source, version, new PropertyIndex(new Properties()));
+
+		Files.write(file, "name=second".getBytes(Charset.forName("UTF-8")));
+		Files.setLastModifiedTime(file, FileTime.fromMillis(Files.getLastModifiedTime(file).toMillis() + 2000));
+		String changedVersion = PropertyIndexRegistry.versionOf(location);
+
+		assertThat(changedVersion, not(version));
+		assertThat(PropertyIndexRegistry.get(source, changedVersion), nullValue());
+	}
+
+	@Test
+	public void unversionedLocationIsNotShared() throws Exception {
+		assertThat(PropertyIndexRegistry.versionOf(new URL("http://localhost/app.properties")), is((String) null));
+	}
+
+	private Path writeFile(String content) throws Exception {
+		Path file = temporaryFolder.newFile().toPath();
+		Files.write(file, content.getBytes(Charset.forName("UTF-8")));
+		return file;
+	}
+}
@@ -0,0 +1,80 @@
+package com.coderskitchen.cdiproperties;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+
+public class PropertyIndexTest {
+
+	private PropertyIndex index;
+
+	@Before
+	public void setUp() throws Exception {
+		Properties properties = new Properties();
+		properties.put("db.pool", "standalone");
+		properties.put("db.pool.max", "10");
+		properties.put("db.pool.min", "2");
+		properties.put("db.pool.timeout.connect", "1s");
+		properties.put("db.poolx", "sibling");
+		properties.put("db.url", "jdbc:h2:mem");
+		properties.put("name", "app");
+		index = new PropertyIndex(properties);
+	}
+
+	@Test
+	public void keysAreLookedUp() throws Exception {
+		assertThat(index.get("db.pool"), equalTo("standalone"));
+		assertThat(index.get("name"), equalTo("app"));
+		assertThat(index.get("unknown"), nullValue());
+	}
+
+	@Test
+	public void prefixViewContainsRelativeKeysOnly() throws Exception {
+		Map<String, String> expected = new HashMap<String, String>();
+		expected.put("max", "10");
+		expected.put("min", "2");
+		expected.put("timeout.connect", "1s");
+
+		Map<String, String> view = index.withPrefix("db.pool");
+
+		assertThat(view, equalTo(expected));
+		assertThat(view.get("max"), equalTo("10"));
+		assertThat(view.get("timeout.connect"), equalTo("1s"));
+		assertThat(view.get("x"), nullValue());
+		assertThat(view.containsKey("db.pool.max"), equalTo(false));
+	}
+
+	@Test
+	public void prefixViewsAreShared() throws Exception {
+		assertThat(index.withPrefix("db.pool"), sameInstance(index.withPrefix("db.pool.")));
+		assertThat(index.withPrefix("db").withPrefix("pool"), sameInstance(index.withPrefix("db.pool")));
+	}
+
+	@Test
+	public void unknownPrefixIsEmpty() throws Exception {
+		assertThat(index.withPrefix("cache").isEmpty(), equalTo(true));
+		assertThat(index.withPrefix("").size(), equalTo(7));
+	}
+
+	@Test
+	public void equalStringsOfDifferentFilesAreShared() throws Exception {
+		Properties properties = new Properties();
+		properties.put(new String("db.url"), new String("app"));
+		PropertyIndex other = new PropertyIndex(properties);
+
+		assertThat(other.keyAt(0), sameInstance(index.keyAt(5)));
+		assertThat(other.valueAt(0), sameInstance(index.get("name")));
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void prefixViewIsReadOnly() throws Exception {
+		index.withPrefix("db").put("x", "y");
+	}
+}
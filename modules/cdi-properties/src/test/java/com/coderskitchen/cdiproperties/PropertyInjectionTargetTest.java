@@ -0,0 +1,213 @@
+package com.coderskitchen.cdiproperties;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import javax.enterprise.context.spi.CreationalContext;
+import javax.enterprise.inject.InjectionException;
+import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.InjectionPoint;
+import javax.enterprise.inject.spi.InjectionTarget;
+import javax.enterprise.inject.spi.ProcessInjectionTarget;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class PropertyInjectionTargetTest {
+
+	@Test
+	public void loaderRunsOnceForConcurrentInjections() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+		final CountDownLatch start = new CountDownLatch(1);
+		final PropertyInjectionTarget<Bean> target = new PropertyInjectionTarget<Bean>(new Callable<Map<Field, Object>>() {
+			@Override
+			public Map<Field, Object> call() throws Exception {
+				calls.incrementAndGet();
+				Thread.sleep(50);
+				return nameValue("loaded");
+			}
+		}, new NoOpInjectionTarget<Bean>());
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<Bean>> beans = new ArrayList<Future<Bean>>();
+			for (int i = 0; i < 8; i++) {
+				beans.add(executor.submit(new Callable<Bean>() {
+					@Override
+					public Bean call() throws Exception {
+						start.await();
+						Bean bean = new Bean();
+						target.inject(bean, null);
+						return bean;
+					}
+				}));
+			}
+			start.countDown();
+			for (Future<Bean> bean : beans) {
+				assertThat(bean.get(10, TimeUnit.SECONDS).name, equalTo("loaded"));
+			}
+		} finally {
+			executor.shutdownNow();
+		}
+		assertThat(calls.get(), is(1));
+	}
+
+	@Test
+	public void failedLoadIsThrownAsInjectionExceptionAndRetried() throws Exception {
+		final AtomicInteger calls = new AtomicInteger();
+		PropertyInjectionTarget<Bean> target = new PropertyInjectionTarget<Bean>(new Callable<Map<Field, Object>>() {
+			@Override
+			public Map<Field, Object> call() throws Exception {
+				if (calls.incrementAndGet() == 1) {
+					throw new IOException("not yet readable");
+				}
+				return nameValue("second");
+			}
+		}, new NoOpInjectionTarget<Bean>());
+
+		try {
+			target.inject(new Bean(), null);
+			fail("InjectionException expected");
+		} catch (InjectionException e) {
+			assertThat(e.getCause(), instanceOf(IOException.class));
+		}
+		Bean bean = new Bean();
+		target.inject(bean, null);
+
+		assertThat(bean.name, equalTo("second"));
+		assertThat(calls.get(), is(2));
+	}
+
+	@Test
+	public void injectionExceptionOfLoaderIsNotWrapped() throws Exception {
+		final InjectionException failure = new InjectionException("missing key");
+		PropertyInjectionTarget<Bean> target = new PropertyInjectionTarget<Bean>(new Callable<Map<Field, Object>>() {
+			@Override
+			public Map<Field, Object> call() throws Exception {
+				throw failure;
+			}
+		}, new NoOpInjectionTarget<Bean>());
+
+		try {
+			target.load();
+			fail("InjectionException expected");
+		} catch (InjectionException e) {
+			assertThat(e, sameInstance(failure));
+		}
+	}
+
+	@Test
+	public void subConfigIsCreatedPerInjection() throws Exception {
+		Field size = Pool.class.getDeclaredField("size");
+		size.setAccessible(true);
+		Field pool = Bean.class.getDeclaredField("pool");
+		pool.setAccessible(true);
+		Map<Field, Object> values = new HashMap<Field, Object>();
+		values.put(pool, new FieldValueConverter.SubConfig(Pool.class.getDeclaredConstructor(), Collections.<Field, Object>singletonMap(size, 12)));
+		PropertyInjectionTarget<Bean> target = new PropertyInjectionTarget<Bean>(values, new NoOpInjectionTarget<Bean>());
+
+		Bean first = new Bean();
+		Bean second = new Bean();
+		target.inject(first, null);
+		target.inject(second, null);
+
+		assertThat(first.pool.size, is(12));
+		assertThat(second.pool.size, is(12));
+		assertThat(second.pool, not(sameInstance(first.pool)));
+	}
+
+	@Test
+	@SuppressWarnings({"deprecation", "unchecked"})
+	public void deprecatedConstructorConvertsOnFirstInjectionAndReportsProblems() throws Exception {
+		final List<Throwable> definitionErrors = new ArrayList<Throwable>();
+		final AnnotatedType<Bean> annotatedType = (AnnotatedType<Bean>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{AnnotatedType.class}, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				return "getJavaClass".equals(method.getName()) ? Bean.class : null;
+			}
+		});
+		ProcessInjectionTarget<Bean> pit = (ProcessInjectionTarget<Bean>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{ProcessInjectionTarget.class}, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				if ("addDefinitionError".equals(method.getName())) {
+					definitionErrors.add((Throwable) args[0]);
+				}
+				return "getAnnotatedType".equals(method.getName()) ? annotatedType : null;
+			}
+		});
+		Map<Field, Object> values = new HashMap<Field, Object>();
+		values.put(Bean.class.getDeclaredField("name"), "demo");
+		values.put(Bean.class.getDeclaredField("pool"), "unconvertible");
+		PropertyInjectionTarget<Bean> target = new PropertyInjectionTarget<Bean>(values, pit, new NoOpInjectionTarget<Bean>());
+
+		Bean bean = new Bean();
+		target.inject(bean, null);
+
+		assertThat(bean.name, equalTo("demo"));
+		assertThat(definitionErrors.size(), is(1));
+		assertThat(definitionErrors.get(0).getMessage(), equalTo(String.format(PropertyInjectionTarget.MESSAGE_NO_CONVERTER_FOUND, "pool", Pool.class, Bean.class.getName())));
+	}
+
+	private static Map<Field, Object> nameValue(String value) throws NoSuchFieldException {
+		Field name = Bean.class.getDeclaredField("name");
+		name.setAccessible(true);
+		return Collections.<Field, Object>singletonMap(name, value);
+	}
+
+	static class Bean {
+		private String name;
+		private Pool pool;
+	}
+
+	static class Pool {
+		private int size;
+	}
+
+	private static class NoOpInjectionTarget<T> implements InjectionTarget<T> {
+		@Override
+		public void inject(T instance, CreationalContext<T> ctx) {
+		}
+
+		@Override
+		public void postConstruct(T instance) {
+		}
+
+		@Override
+		public void preDestroy(T instance) {
+		}
+
+		@Override
+		public T produce(CreationalContext<T> ctx) {
+			return null;
+		}
+
+		@Override
+		public void dispose(T instance) {
+		}
+
+		@Override
+		public Set<InjectionPoint> getInjectionPoints() {
+			return Collections.emptySet();
+		}
+	}
+}
@@ -0,0 +1,39 @@
+package com.coderskitchen.cdiproperties;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class StringPoolTest {
+
+	@Test
+	public void duplicatesWithinADeploymentAreCountedAsSaving() throws Exception {
+		StringPool.Statistics statistics = new StringPool.Statistics();
+		String first = StringPool.canonicalize(new String("within-deployment"), statistics);
+
+		String second = StringPool.canonicalize(new String("within-deployment"), statistics);
+
+		assertThat(second, sameInstance(first));
+		assertThat(statistics.getLookups(), equalTo(2L));
+		assertThat(statistics.getDuplicates(), equalTo(1L));
+		assertThat(statistics.getShared(), equalTo(0L));
+		assertThat(statistics.getSavedBytes(), equalTo(40L + 2 * "within-deployment".length()));
+	}
+
+	@Test
+	public void duplicatesOfAnotherDeploymentAreCountedAsSharedWithoutSaving() throws Exception {
+		StringPool.Statistics previous = new StringPool.Statistics();
+		StringPool.Statistics current = new StringPool.Statistics();
+		String first = StringPool.canonicalize(new String("across-deployments"), previous);
+
+		String second = StringPool.canonicalize(new String("across-deployments"), current);
+
+		assertThat(second, sameInstance(first));
+		assertThat(current.getLookups(), equalTo(1L));
+		assertThat(current.getDuplicates(), equalTo(0L));
+		assertThat(current.getShared(), equalTo(1L));
+		assertThat(current.getSavedBytes(), equalTo(0L));
+		assertThat(previous.getLookups(), equalTo(1L));
+	}
+}
@@ -2,30 +2,88 @@ package com.coderskitchen.cdiproperties;
 
 import com.coderskitchen.cdiproperties.converter.BooleanConverter;
 import com.coderskitchen.cdiproperties.converter.spi.ValueConverter;
+import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.CoreMatchers.instanceOf;
+import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.CoreMatchers.nullValue;
+import static org.hamcrest.CoreMatchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import org.junit.Test;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 
 public class ValueConverterFactoryTest {
 
+	private final ValueConverterFactory factory = new ValueConverterFactory();
+
 	@Test
 	public void lookupIsNullSafe() throws Exception {
-		ValueConverter converter = ValueConverterFactory.findConverterForFieldType(null);
+		ValueConverter converter = factory.findConverter(null);
 		assertThat(converter, nullValue());
 	}
 
 	@Test
 	public void missingTypeReturnsNull() throws Exception {
-		ValueConverter converter = ValueConverterFactory.findConverterForFieldType(List.class);
+		ValueConverter converter = factory.findConverter(List.class);
 		assertThat(converter, nullValue());
 	}
 
 	@Test
 	public void availableConverterReturnsConverter() throws Exception {
-		ValueConverter converterForFieldType = ValueConverterFactory.findConverterForFieldType(Boolean.class);
+		ValueConverter converterForFieldType = factory.findConverter(Boolean.class);
 		assertThat(converterForFieldType, instanceOf(BooleanConverter.class));
 	}
+
+	@Test
+	public void memoizableConverterResultsAreShared() throws Exception {
+		ValueConverter converter = factory.findConverter(Pattern.class);
+		Object first = converter.convert("[a-z]+");
+		Object second = factory.findConverter(Pattern.class).convert(new String("[a-z]+"));
+
+		assertThat(first, instanceOf(Pattern.class));
+		assertThat(second, sameInstance(first));
+		assertThat(converter.convert("[0-9]+"), not(sameInstance(first)));
+	}
+
+	@Test
+	public void typedConverterReceivesTargetType() throws Exception {
+		ValueConverter converter = factory.findConverter(TimeUnit.class);
+		assertThat(converter.convert(" SECONDS"), equalTo((Object) TimeUnit.SECONDS));
+	}
+
+	@Test
+	public void typedConverterIsBoundOncePerType() throws Exception {
+		ValueConverter converter = factory.findConverter(TimeUnit.class);
+
+		assertThat(factory.findConverter(TimeUnit.class), sameInstance(converter));
+		assertThat(factory.findConverter(RoundingMode.class), not(sameInstance(converter)));
+		assertThat(factory.findConverter(RoundingMode.class).convert("HALF_UP"), equalTo((Object) RoundingMode.HALF_UP));
+	}
+
+	@Test
+	public void valueIsConvertedToBigDecimal() throws Exception {
+		ValueConverter converter = factory.findConverter(BigDecimal.class);
+		assertThat(converter.convert("1.50"), equalTo((Object) new BigDecimal("1.50")));
+	}
+
+	@Test
+	public void factoriesDontShareMemoizedResults() throws Exception {
+		Object first = factory.findConverter(Pattern.class).convert("[a-z]+");
+		Object second = new ValueConverterFactory().findConverter(Pattern.class).convert("[a-z]+");
+
+		assertThat(second, not(sameInstance(first)));
+	}
+
+	@Test
+	@SuppressWarnings("deprecation")
+	public void deprecatedStaticLookupUsesOneDefaultFactory() throws Exception {
+		ValueConverter converter = ValueConverterFactory.findConverterForFieldType(Boolean.class);
+
+		assertThat(converter, instanceOf(BooleanConverter.class));
+		assertThat(ValueConverterFactory.findConverterForFieldType(TimeUnit.class), sameInstance(ValueConverterFactory.findConverterForFieldType(TimeUnit.class)));
+	}
 }
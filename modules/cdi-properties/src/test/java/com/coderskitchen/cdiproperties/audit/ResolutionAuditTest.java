@@ -0,0 +1,109 @@
+package com.coderskitchen.cdiproperties.audit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import com.coderskitchen.cdiproperties.audit.spi.AuditSink;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public class ResolutionAuditTest {
+
+	private ResolutionAudit audit;
+
+	@After
+	public void tearDown() throws Exception {
+		if (audit != null) {
+			audit.close();
+		}
+	}
+
+	@Test
+	public void traceContainsRecordedEventsInOrder() throws Exception {
+		audit = new ResolutionAudit(4, Collections.<AuditSink>emptyList());
+		for (int i = 0; i < 10; i++) {
+			audit.record("app.properties", "file:/app.properties", SourceLayer.FILE_SYSTEM, "key" + i, "Bean", "field" + i, "Converter");
+			// leave the drainer time, 10 events don't fit into 4 slots
+			audit.getTrace();
+		}
+		List<AuditEvent> trace = audit.getTrace();
+		assertThat(trace.size(), is(10));
+		assertThat(trace.get(3).getKey(), is("key3"));
+		assertThat(trace.get(3).getTargetField(), is("field3"));
+		assertThat(trace.get(3).getSourceLayer(), is(SourceLayer.FILE_SYSTEM));
+		assertThat(audit.getDroppedEvents(), is(0L));
+	}
+
+	@Test
+	public void sinkReceivesEvents() throws Exception {
+		final List<String> keys = new ArrayList<String>();
+		AuditSink sink = new AuditSink() {
+			@Override
+			public void accept(AuditEvent event) {
+				keys.add(event.getKey());
+			}
+		};
+		audit = new ResolutionAudit(16, Collections.singletonList(sink));
+		audit.record("app.properties", "file:/app.properties", SourceLayer.CLASSPATH, "first", "Bean", "a", null);
+		audit.record("app.properties", "file:/app.properties", SourceLayer.CLASSPATH, "second", "Bean", "b", null);
+		audit.close();
+		assertThat(keys, equalTo(Arrays.asList("first", "second")));
+	}
+
+	@Test
+	public void eventsAreDroppedInsteadOfBlockingWhenBufferIsFull() throws Exception {
+		final CountDownLatch sinkEntered = new CountDownLatch(1);
+		final CountDownLatch releaseSink = new CountDownLatch(1);
+		AuditSink blockingSink = new AuditSink() {
+			@Override
+			public void accept(AuditEvent event) {
+				sinkEntered.countDown();
+				try {
+					releaseSink.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		audit = new ResolutionAudit(2, Collections.singletonList(blockingSink));
+		audit.record("app.properties", "file:/app.properties", SourceLayer.CLASSPATH, "blocked", "Bean", "a", null);
+		sinkEntered.await();
+		for (int i = 0; i < 5; i++) {
+			audit.record("app.properties", "file:/app.properties", SourceLayer.CLASSPATH, "key" + i, "Bean", "a", null);
+		}
+		assertThat(audit.getDroppedEvents(), is(4L));
+		releaseSink.countDown();
+		try {
+			audit.getTrace();
+			fail("Incomplete trace returned");
+		} catch (IllegalStateException e) {
+			assertThat(e.getMessage(), is(String.format(ResolutionAudit.MESSAGE_TRACE_INCOMPLETE, 4)));
+		}
+	}
+
+	@Test
+	public void traceKeepsCopiesOfTheReusedSlots() throws Exception {
+		audit = new ResolutionAudit(1, Collections.<AuditSink>emptyList());
+		audit.record("app.properties", "file:/app.properties", SourceLayer.CLASSPATH, "first", "Bean", "a", null);
+		AuditEvent first = audit.getTrace().get(0);
+		audit.record("app.properties", "file:/app.properties", SourceLayer.CLASSPATH, "second", "Bean", "b", null);
+		List<AuditEvent> trace = audit.getTrace();
+		assertThat(trace.get(0), sameInstance(first));
+		assertThat(trace.get(0).getKey(), is("first"));
+		assertThat(trace.get(1), not(sameInstance(first)));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidCapacityIsRejected() {
+		new ResolutionAudit(0, Collections.<AuditSink>emptyList());
+	}
+}
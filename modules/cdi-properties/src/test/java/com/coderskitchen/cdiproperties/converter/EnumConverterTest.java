@@ -0,0 +1,34 @@
+package com.coderskitchen.cdiproperties.converter;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import com.coderskitchen.cdiproperties.converter.spi.ValueConverter;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+@SuppressWarnings("unchecked")
+public class EnumConverterTest {
+
+	private final EnumConverter converter = new EnumConverter();
+
+	@Test
+	public void enumsAreAccepted() throws Exception {
+		assertThat(converter.accept((Class) TimeUnit.class), is(true));
+		assertThat(converter.accept((Class) String.class), is(false));
+	}
+
+	@Test
+	public void boundConverterConvertsToConstantsOfItsEnum() throws Exception {
+		ValueConverter<Enum> bound = converter.bind((Class) TimeUnit.class);
+
+		assertThat(bound.accept((Class) TimeUnit.class), is(true));
+		assertThat(bound.convert(" MINUTES "), equalTo((Enum) TimeUnit.MINUTES));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownConstantIsRejected() throws Exception {
+		converter.bind((Class) TimeUnit.class).convert("WEEKS");
+	}
+}
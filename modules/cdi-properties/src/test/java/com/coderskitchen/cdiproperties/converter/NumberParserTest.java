@@ -0,0 +1,60 @@
+package com.coderskitchen.cdiproperties.converter;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+public class NumberParserTest {
+
+	@Test
+	public void parsesSignedNumbersIgnoringSurroundingWhitespace() throws Exception {
+		assertThat(NumberParser.parseLong(" 42 ", Long.MIN_VALUE, Long.MAX_VALUE), equalTo(42L));
+		assertThat(NumberParser.parseLong("-42", Long.MIN_VALUE, Long.MAX_VALUE), equalTo(-42L));
+		assertThat(NumberParser.parseLong("+42", Long.MIN_VALUE, Long.MAX_VALUE), equalTo(42L));
+	}
+
+	@Test
+	public void parsesLongBoundaries() throws Exception {
+		assertThat(NumberParser.parseLong(String.valueOf(Long.MIN_VALUE), Long.MIN_VALUE, Long.MAX_VALUE), equalTo(Long.MIN_VALUE));
+		assertThat(NumberParser.parseLong(String.valueOf(Long.MAX_VALUE), Long.MIN_VALUE, Long.MAX_VALUE), equalTo(Long.MAX_VALUE));
+	}
+
+	@Test
+	public void parsesRangeOfCharacters() throws Exception {
+		assertThat(NumberParser.parseLong("key=123;", 4, 7, 0, 1000), equalTo(123L));
+	}
+
+	@Test
+	public void outOfRangeValueReportsRange() throws Exception {
+		assertFailure("128", Byte.MIN_VALUE, Byte.MAX_VALUE, "Value [128] is out of range [-128, 127]");
+		assertFailure("9223372036854775808", Long.MIN_VALUE, Long.MAX_VALUE, "Value [9223372036854775808] is out of range [-9223372036854775808, 9223372036854775807]");
+	}
+
+	@Test
+	public void invalidValueIsReported() throws Exception {
+		assertFailure("12a", 0, 100, "Value [12a] is not a number");
+		assertFailure("-", 0, 100, "Value [-] is not a number");
+		assertFailure(" ", 0, 100, "Value [ ] is not a number");
+	}
+
+	@Test
+	public void integerConverterUsesIntRange() throws Exception {
+		assertThat(new IntegerConverter().convert("2147483647"), equalTo(Integer.MAX_VALUE));
+		try {
+			new IntegerConverter().convert("2147483648");
+			fail();
+		} catch (NumberFormatException e) {
+			assertThat(e.getMessage(), equalTo("Value [2147483648] is out of range [-2147483648, 2147483647]"));
+		}
+	}
+
+	private void assertFailure(String value, long min, long max, String message) {
+		try {
+			NumberParser.parseLong(value, min, max);
+			fail("Expected failure for " + value);
+		} catch (NumberFormatException e) {
+			assertThat(e.getMessage(), equalTo(message));
+		}
+	}
+}
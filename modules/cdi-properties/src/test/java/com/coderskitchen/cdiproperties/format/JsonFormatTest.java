@@ -0,0 +1,80 @@
+package com.coderskitchen.cdiproperties.format;
+
+import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+public class JsonFormatTest {
+
+	@Test
+	public void nestedKeysAreFlattened() throws Exception {
+		Properties properties = read("{\"db\": {\"pool\": {\"size\": 10, \"fair\": true}, \"hosts\": [\"a\", {\"name\": \"b\"}]}, \"empty\": {}}");
+
+		assertThat(properties.getProperty("db.pool.size"), equalTo("10"));
+		assertThat(properties.getProperty("db.pool.fair"), equalTo("true"));
+		assertThat(properties.getProperty("db.hosts[0]"), equalTo("a"));
+		assertThat(properties.getProperty("db.hosts[1].name"), equalTo("b"));
+		assertThat(properties.size(), equalTo(4));
+	}
+
+	@Test
+	public void stringsAreUnescapedAndNullsSkipped() throws Exception {
+		Properties properties = read("{\"text\": \"line\\nnext \\\"quoted\\\" \\u00e4\", \"missing\": null, \"number\": -1.5e3}");
+
+		assertThat(properties.getProperty("text"), equalTo("line\nnext \"quoted\" \u00e4"));
+		assertThat(properties.getProperty("missing"), nullValue());
+		assertThat(properties.getProperty("number"), equalTo("-1.5e3"));
+	}
+
+	@Test(expected = IOException.class)
+	public void documentMustBeAnObject() throws Exception {
+		read("[1, 2]");
+	}
+
+	@Test(expected = IOException.class)
+	public void malformedDocumentIsRejected() throws Exception {
+		read("{\"a\": 1,\n \"b\" 2}");
+	}
+
+	@Test
+	public void leadingByteOrderMarkIsSkipped() throws Exception {
+		Properties properties = read("\uFEFF{\"a\": 1}");
+
+		assertThat(properties.getProperty("a"), equalTo("1"));
+	}
+
+	@Test
+	public void wellFormedNumbersAreAccepted() throws Exception {
+		Properties properties = read("{\"a\": 0, \"b\": -0.5, \"c\": 12E+2, \"d\": 3e-1}");
+
+		assertThat(properties.getProperty("a"), equalTo("0"));
+		assertThat(properties.getProperty("b"), equalTo("-0.5"));
+		assertThat(properties.getProperty("c"), equalTo("12E+2"));
+		assertThat(properties.getProperty("d"), equalTo("3e-1"));
+	}
+
+	@Test
+	public void malformedNumbersAreRejected() throws Exception {
+		for (String number : new String[]{"-", "-abc", "1.2.3", "01", "1.", ".5", "1e", "1e+", "+1", "1-2"}) {
+			try {
+				read("{\"a\": " + number + "}");
+				fail(number + " must be rejected");
+			} catch (IOException e) {
+				assertThat(e.getMessage(), containsString("invalid literal " + number));
+			}
+		}
+	}
+
+	private Properties read(String json) throws IOException {
+		Properties properties = new Properties();
+		new JsonFormat().read(new ByteArrayInputStream(json.getBytes("UTF-8")), properties);
+		return properties;
+	}
+}
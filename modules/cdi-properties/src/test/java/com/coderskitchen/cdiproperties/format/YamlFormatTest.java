@@ -0,0 +1,101 @@
+package com.coderskitchen.cdiproperties.format;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Properties;
+
+public class YamlFormatTest {
+
+	@Test
+	public void nestedMappingsAndSequencesAreFlattened() throws Exception {
+		Properties properties = read(
+				"---\n" +
+				"# database settings\n" +
+				"db:\n" +
+				"  pool:\n" +
+				"    size: 10   # connections\n" +
+				"    timeout: 250ms\n" +
+				"  hosts:\n" +
+				"  - a\n" +
+				"  - name: b\n" +
+				"    port: 5432\n" +
+				"  tags: [x, 'y, z']\n" +
+				"name: app\n");
+
+		assertThat(properties.getProperty("db.pool.size"), equalTo("10"));
+		assertThat(properties.getProperty("db.pool.timeout"), equalTo("250ms"));
+		assertThat(properties.getProperty("db.hosts[0]"), equalTo("a"));
+		assertThat(properties.getProperty("db.hosts[1].name"), equalTo("b"));
+		assertThat(properties.getProperty("db.hosts[1].port"), equalTo("5432"));
+		assertThat(properties.getProperty("db.tags[0]"), equalTo("x"));
+		assertThat(properties.getProperty("db.tags[1]"), equalTo("y, z"));
+		assertThat(properties.getProperty("name"), equalTo("app"));
+		assertThat(properties.size(), equalTo(8));
+	}
+
+	@Test
+	public void scalarsAreUnquotedAndNullsSkipped() throws Exception {
+		Properties properties = read(
+				"double: \"a # b\\tc\"\n" +
+				"single: 'it''s'\n" +
+				"plain: it's # comment\n" +
+				"url: http://example.com:8080/x\n" +
+				"tilde: ~\n" +
+				"none:\n" +
+				"after: value\n");
+
+		assertThat(properties.getProperty("double"), equalTo("a # b\tc"));
+		assertThat(properties.getProperty("single"), equalTo("it's"));
+		assertThat(properties.getProperty("plain"), equalTo("it's"));
+		assertThat(properties.getProperty("url"), equalTo("http://example.com:8080/x"));
+		assertThat(properties.getProperty("tilde"), nullValue());
+		assertThat(properties.getProperty("none"), nullValue());
+		assertThat(properties.getProperty("after"), equalTo("value"));
+	}
+
+	@Test
+	public void blockScalarsKeepOrFoldLines() throws Exception {
+		Properties properties = read(
+				"literal: |\n" +
+				"  first\n" +
+				"\n" +
+				"  second\n" +
+				"folded: >-\n" +
+				"  one\n" +
+				"  two\n" +
+				"next: x\n");
+
+		assertThat(properties.getProperty("literal"), equalTo("first\n\nsecond\n"));
+		assertThat(properties.getProperty("folded"), equalTo("one two"));
+		assertThat(properties.getProperty("next"), equalTo("x"));
+	}
+
+	@Test(expected = IOException.class)
+	public void badIndentationIsRejected() throws Exception {
+		read("a:\n    b: 1\n  c: 2\n");
+	}
+
+	@Test(expected = IOException.class)
+	public void aliasesAreRejected() throws Exception {
+		read("a: &anchor 1\nb: *anchor\n");
+	}
+
+	@Test
+	public void leadingByteOrderMarkIsSkipped() throws Exception {
+		Properties properties = read("\uFEFFa: 1\n");
+
+		assertThat(properties.getProperty("a"), equalTo("1"));
+		assertThat(properties.size(), equalTo(1));
+	}
+
+	private Properties read(String yaml) throws IOException {
+		Properties properties = new Properties();
+		new YamlFormat().read(new ByteArrayInputStream(yaml.getBytes("UTF-8")), properties);
+		return properties;
+	}
+}
@@ -0,0 +1,37 @@
+package com.coderskitchen.cdiproperties.unit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+public class DataSizeTest {
+
+	@Test
+	public void parsesBinaryAndDecimalUnits() throws Exception {
+		assertThat(DataSize.parse("64MiB").toBytes(), equalTo(64L * 1024 * 1024));
+		assertThat(DataSize.parse("10 KB").toBytes(), equalTo(10000L));
+		assertThat(DataSize.parse("1gib").toMebibytes(), equalTo(1024L));
+		assertThat(DataSize.parse("512B").toBytes(), equalTo(512L));
+	}
+
+	@Test
+	public void plainNumberIsBytes() throws Exception {
+		assertThat(DataSize.parse("4096"), equalTo(DataSize.ofBytes(4096)));
+	}
+
+	@Test
+	public void printsLargestExactBinaryUnit() throws Exception {
+		assertThat(DataSize.parse("65536KiB").toString(), equalTo("64MiB"));
+		assertThat(DataSize.parse("1000").toString(), equalTo("1000B"));
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void overflowIsRejected() throws Exception {
+		DataSize.parse("9000000TiB");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownUnitIsRejected() throws Exception {
+		DataSize.parse("64 bits");
+	}
+}
@@ -0,0 +1,42 @@
+package com.coderskitchen.cdiproperties.unit;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class DurationTest {
+
+	@Test
+	public void parsesAmountAndUnit() throws Exception {
+		Duration duration = Duration.parse("250ms");
+		assertThat(duration.getAmount(), equalTo(250L));
+		assertThat(duration.getUnit(), equalTo(TimeUnit.MILLISECONDS));
+		assertThat(Duration.parse(" 30 s ").toMillis(), equalTo(30000L));
+		assertThat(Duration.parse("5m").getUnit(), equalTo(TimeUnit.MINUTES));
+		assertThat(Duration.parse("5min").getUnit(), equalTo(TimeUnit.MINUTES));
+		assertThat(Duration.parse("2h").to(TimeUnit.MINUTES), equalTo(120L));
+	}
+
+	@Test
+	public void plainNumberIsMilliseconds() throws Exception {
+		assertThat(Duration.parse("1500"), equalTo(Duration.of(1500, TimeUnit.MILLISECONDS)));
+	}
+
+	@Test
+	public void equalDurationsInDifferentUnitsAreEqual() throws Exception {
+		assertThat(Duration.parse("1s"), equalTo(Duration.parse("1000ms")));
+		assertThat(Duration.parse("1s").hashCode(), equalTo(Duration.parse("1000ms").hashCode()));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void unknownUnitIsRejected() throws Exception {
+		Duration.parse("5 weeks");
+	}
+
+	@Test(expected = NumberFormatException.class)
+	public void negativeDurationIsRejected() throws Exception {
+		Duration.parse("-5s");
+	}
+}